@@ -0,0 +1,50 @@
+import com.gamesbykevin.wolfenstein.headless.GoldenFrames;
+
+import java.io.File;
+
+/**
+ * This file will check the rendered frames against the golden frames without a display, run with -Djava.awt.headless=true<br>
+ * Arguments: record|verify [golden directory]<br>
+ * Verify exits with status 1 if any frame does not match
+ * @author GOD
+ */
+public final class StartGoldenFrames
+{
+    //the default directory containing the golden frames
+    private static final String DEFAULT_DIRECTORY = "golden";
+    
+    public static void main(String[] args)
+    {
+        try
+        {
+            final String mode = (args.length > 0) ? args[0] : "verify";
+            final File directory = new File((args.length > 1) ? args[1] : DEFAULT_DIRECTORY);
+            
+            GoldenFrames goldenFrames = new GoldenFrames(directory);
+            
+            switch (mode)
+            {
+                case "record":
+                    goldenFrames.record();
+                    System.out.println("Golden frames recorded to " + directory);
+                    break;
+                
+                case "verify":
+                    final int mismatches = goldenFrames.verify();
+                    System.out.println((mismatches == 0) ? "All frames match" : (mismatches + " frame(s) do not match"));
+                    
+                    if (mismatches > 0)
+                        System.exit(1);
+                    break;
+                
+                default:
+                    throw new Exception("Mode not setup here \"" + mode + "\"");
+            }
+        }
+        catch(Exception e)
+        {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import com.gamesbykevin.wolfenstein.headless.CameraPath;
+import com.gamesbykevin.wolfenstein.headless.HeadlessRenderer;
+import com.gamesbykevin.wolfenstein.level.Level;
+import com.gamesbykevin.wolfenstein.shared.Shared;
+
+import java.io.File;
+
+/**
+ * This file will render frames of the 3d view without a display, run with -Djava.awt.headless=true<br>
+ * Arguments: [output directory] [frames] [seed] [maze dimensions] [width] [height]<br>
+ * Each frame is written as a png to the output directory, if there is no directory (or it is "-") the frames are only timed.<br>
+ * Timing the same frames at different sizes (e.g. 640x400 and 1920x1080) shows how the render passes scale with the pixel count
+ * @author GOD
+ */
+public final class StartHeadless
+{
+    //the default number of frames to render
+    private static final int DEFAULT_FRAMES = 60;
+    
+    //the default seed used to create the level
+    private static final long DEFAULT_SEED = 0;
+    
+    public static void main(String[] args)
+    {
+        try
+        {
+            final File directory = (args.length > 0 && !args[0].equals("-")) ? new File(args[0]) : null;
+            final int frames = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_FRAMES;
+            final long seed = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_SEED;
+            final int mazeDimensions = (args.length > 3) ? Integer.parseInt(args[3]) : Level.MINIMUM_MAZE_DIMENSION;
+            final int width = (args.length > 4) ? Integer.parseInt(args[4]) : Shared.INITIAL_WIDTH;
+            final int height = (args.length > 5) ? Integer.parseInt(args[5]) : Shared.INITIAL_HEIGHT;
+            
+            if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+                throw new Exception("Unable to create directory: " + directory);
+            
+            //create the level and 3d screen, the same size as the game window by default
+            HeadlessRenderer renderer = new HeadlessRenderer(width, height, seed, mazeDimensions);
+            
+            //the path the camera will follow
+            CameraPath path = CameraPath.createDefault();
+            
+            //the total time spent rendering (nano-seconds)
+            long total = 0;
+            
+            for (int frame = 0; frame < frames; frame++)
+            {
+                final long start = System.nanoTime();
+                
+                renderer.render(path, frame, frames);
+                
+                total += System.nanoTime() - start;
+                
+                if (directory != null)
+                    renderer.write(new File(directory, String.format("frame%04d.png", frame)));
+            }
+            
+            System.out.println("Frames rendered = " + frames + " at " + width + "x" + height + ", average ms per frame = " + ((total / Math.max(frames, 1)) / 1000000.0));
+            
+            renderer.dispose();
+        }
+        catch(Exception e)
+        {
+            e.printStackTrace();
+        }
+    }
+}
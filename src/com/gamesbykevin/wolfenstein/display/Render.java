@@ -21,6 +21,21 @@ public abstract class Render implements Disposable
         this.pixels = new int[width * height];
     }
     
+    /**
+     * Create our object that will draw to an existing pixel array
+     * @param width Width of the image
+     * @param height Height of the image
+     * @param pixels The pixel data we will draw to, the length must be width * height
+     */
+    public Render(final int width, final int height, final int[] pixels)
+    {
+        //create our dimension
+        this.dimension = new Dimension(width, height);
+        
+        //draw to the existing pixel data
+        this.pixels = pixels;
+    }
+    
     /**
      * Clean up resources
      */
@@ -7,6 +7,12 @@ import com.gamesbykevin.wolfenstein.enemies.Enemy;
 import com.gamesbykevin.wolfenstein.hero.Input;
 import com.gamesbykevin.wolfenstein.level.*;
 import com.gamesbykevin.wolfenstein.level.objects.*;
+import com.gamesbykevin.wolfenstein.metrics.Metrics;
+import com.gamesbykevin.wolfenstein.shared.Shared;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Render3D extends Render
 {
@@ -16,6 +22,12 @@ public class Render3D extends Render
     //our zBufferWall will store the depth of the walls so we can determine the closest wall to the player to render
     private double[] zBufferWall;
     
+    //the rows covered by walls in each column, the bottom is exclusive, the floor/ceiling will skip these pixels
+    private int[] wallTop, wallBottom;
+    
+    //has any wall covered rows since the spans were reset
+    private boolean wallSpans = false;
+    
     /**
      * The depth limit we use to determine what is clipped
      */
@@ -27,27 +39,95 @@ public class Render3D extends Render
     //render pixels within a certain depth
     private final double depthLimit = 300.0;
     
+    //applies the brightness to each pixel as it is written
+    private Shade shade;
+    
     //the height of the ceiling and floor
     private final double floorPosition  = 8;
     private final double ceilingPostion = 8;
     
     //when rendering a door adjust depth for doors
-    private final double doorDepth = 0.5;
+    private final double doorDepth = WallFaces.DOOR_DEPTH;
     
     //when rendering a door adjust depth for secret just a little so the door is not drawn over the walls
-    private final double doorSecretDepth = 0.01;    
+    private final double doorSecretDepth = WallFaces.DOOR_SECRET_DEPTH;
     
     //the number of blocks the object needs to be within range in order to be rendered
     public static final int RENDER_RANGE = 30;
     
-    //temporary texture object
-    private Texture tmpTexture;
+    //the number of threads used to render the floor/ceiling, 1 will render everything on the game thread
+    private int threads = 1;
+    
+    //our workers that will render the floor/ceiling in horizontal bands, null when only 1 thread
+    private ForkJoinPool pool;
+    
+    //did we create the workers, workers shared with other renderers are not shut down here
+    private boolean ownPool = false;
+    
+    //do we cast a ray for each column to render the walls instead of checking every block in range
+    private boolean raycast = false;
+    
+    //do we step through the wall/sprite textures with fixed point math instead of dividing for every pixel
+    private boolean fixedPoint = false;
+    
+    //the number of bits used for the fraction in fixed point math (16.16)
+    private static final int FIXED_SHIFT = 16;
+    
+    //do we sample smaller copies of the wall/floor/ceiling textures for surfaces farther away
+    private boolean mipmaps = false;
+    
+    //the rooms that can be seen from each room, if null everything in range will be rendered
+    private RoomVisibility visibility;
+    
+    //the normals of the left and right side of the camera frustum, anything outside will not be rendered
+    private double frustumLeftX, frustumLeftZ, frustumRightX, frustumRightZ;
+    
+    //the number of blocks, faces and sprites outside the camera frustum this frame
+    private int culled = 0;
+    
+    //the number of sprites completely hidden behind walls this frame
+    private int occluded = 0;
+    
+    //the block sweep renders door faces that slide up to 2 blocks away, so each block needs this much room
+    private static final double BLOCK_RADIUS = 2.5;
+    
+    //scale so the sprite will be bigger
+    private static final double SPRITE_SCALE = 6.0;
+    
+    //the sprites that will be rendered this frame
+    private SpriteBatch sprites;
+    
+    //the pixels drawn by a sprite are marked with the current stamp so farther sprites can skip them
+    private int[] coverage;
+    private int stamp = 0;
+    
+    //do we reuse the floor, ceiling and walls from the last frame when nothing they depend on has changed
+    private boolean staticCache = false;
+    
+    //the floor, ceiling and walls of the last frame before the sprites were drawn
+    private int[] staticPixels;
+    
+    //are the static pixels (and the depth buffers) from the last frame still valid
+    private boolean staticValid = false;
+    
+    //was the static layer reused for the current frame
+    private boolean staticReused = false;
+    
+    //what the static pixels were rendered from
+    private double staticForward, staticRight, staticUp, staticWalking, staticRotation;
+    private int staticPlayerX, staticPlayerZ, staticDoorChanges;
+    private Textures staticTextures;
+    private Level staticLevel;
+    private RoomVisibility staticVisibility;
     
     //store hero input variables because all 3d objects will be rendered around the hero
     private double forward, right, up, walking, sine, cosine, rotation;
     private int count, playerX = 0, playerZ = 0;
     private boolean isWalking, isRunning;
     
+    //the game update being rendered, null when the doors are checked straight from the level
+    private RenderSnapshot snapshot;
+    
     /**
      * Create our object that is responsible for rendering all 3d objects
      * @param width Width of the entire window
@@ -55,10 +135,127 @@ public class Render3D extends Render
      */
     public Render3D(final int width, final int height) throws Exception
     {
-        super(width, height);
+        this(width, height, new int[width * height]);
+    }
+    
+    /**
+     * Create our object that is responsible for rendering all 3d objects.<br>
+     * Every pixel not covered by a wall is drawn by the floor/ceiling so the pixel data never needs to be cleared.
+     * @param width Width of the entire window
+     * @param height Height of the entire window
+     * @param pixels The pixel data we will draw to, the length must be width * height
+     */
+    public Render3D(final int width, final int height, final int[] pixels) throws Exception
+    {
+        super(width, height, pixels);
         
         this.zBuffer = new double[width * height];
         this.zBufferWall = new double[width];
+        this.wallTop = new int[width];
+        this.wallBottom = new int[width];
+        
+        //no walls have been drawn yet
+        resetWallSpans();
+        
+        //the sprites and the pixels they cover are reused every frame
+        this.sprites = new SpriteBatch();
+        this.coverage = new int[width * height];
+        
+        //create the brightness tables
+        this.shade = new Shade(renderBrightnessDistance, depthLimit);
+    }
+    
+    /**
+     * Clean up resources
+     */
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+        
+        releasePool();
+        
+        if (shade != null)
+        {
+            shade.dispose();
+            shade = null;
+        }
+        
+        if (sprites != null)
+        {
+            sprites.dispose();
+            sprites = null;
+        }
+        
+        zBuffer = null;
+        zBufferWall = null;
+        wallTop = null;
+        wallBottom = null;
+        coverage = null;
+        staticPixels = null;
+        staticTextures = null;
+        staticLevel = null;
+        staticVisibility = null;
+    }
+    
+    /**
+     * Set the number of threads used to render the floor/ceiling.<br>
+     * The screen will be split into horizontal bands that are rendered in parallel.
+     * @param threads The number of threads, if less than 2 everything will be rendered on the calling thread
+     */
+    public void setThreads(final int threads)
+    {
+        //no need to change anything
+        if (this.threads == threads)
+            return;
+        
+        //stop any existing workers
+        releasePool();
+        
+        this.threads = (threads < 1) ? 1 : threads;
+        
+        //only create workers if we are rendering in parallel
+        if (this.threads > 1)
+        {
+            this.pool = new ForkJoinPool(this.threads);
+            this.ownPool = true;
+        }
+    }
+    
+    /**
+     * Render the floor/ceiling with workers that are shared with other renderers.<br>
+     * The workers will not be shut down when this renderer is disposed.
+     * @param pool The shared workers, if null everything will be rendered on the calling thread
+     */
+    public void setPool(final ForkJoinPool pool)
+    {
+        //stop any existing workers
+        releasePool();
+        
+        this.pool = pool;
+        this.threads = (pool != null) ? pool.getParallelism() : 1;
+    }
+    
+    /**
+     * Stop using the current workers, they are only shut down if we created them
+     */
+    private void releasePool()
+    {
+        if (pool != null && ownPool)
+            pool.shutdown();
+        
+        pool = null;
+        ownPool = false;
+        threads = 1;
+    }
+    
+    /**
+     * Get the number of threads used to render the floor/ceiling
+     * @return The number of threads, 1 means everything is rendered on the calling thread
+     */
+    public int getThreads()
+    {
+        return this.threads;
     }
     
     /**
@@ -68,41 +265,413 @@ public class Render3D extends Render
      * @param time The time to deduct per update (nano-seconds)
      */
     public void update(final Input input)
+    {
+        //the doors will be checked straight from the level
+        this.snapshot = null;
+        
+        update(input.getZ(), input.getX(), input.getY(), input.getRotation(), input.getPlayerX(), input.getPlayerZ(), input.getCount(), input.isWalking(), input.isRunning());
+    }
+    
+    /**
+     * Set the camera from a captured game update, the doors will be rendered as they were when it was captured
+     * @param snapshot The game update that will be rendered
+     */
+    public void update(final RenderSnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+        
+        update(snapshot.getZ(), snapshot.getX(), snapshot.getY(), snapshot.getRotation(), snapshot.getPlayerX(), snapshot.getPlayerZ(), snapshot.getCount(), snapshot.isWalking(), snapshot.isRunning());
+    }
+    
+    private void update(final double z, final double x, final double y, final double rotation, final int playerX, final int playerZ, final int count, final boolean isWalking, final boolean isRunning)
     {
         //negative value would move backward
-        forward  = input.getZ();
+        this.forward = z;
         
         //negative value would move left
-        right    = input.getX();
+        this.right = x;
         
         //set the players current position
-        playerX = input.getPlayerX();
-        playerZ = input.getPlayerZ();
-        
-        //set to 0 at first
-        walking = 0;
+        this.playerX = playerX;
+        this.playerZ = playerZ;
         
         //height, negative value would move down
-        up = Math.sin(input.getY() / 10) * 2;
+        this.up = Math.sin(y / 10) * 2;
         
         //the direction the hero is facing
-        rotation = input.getRotation();
-        sine = Math.sin(rotation);
-        cosine = Math.cos(rotation);
+        this.rotation = rotation;
+        this.sine = Math.sin(rotation);
+        this.cosine = Math.cos(rotation);
         
         //this is constantly changing for animation purposes
-        count = input.getCount();
+        this.count = count;
+        
+        this.isWalking = isWalking;
+        this.isRunning = isRunning;
+        
+        //the height offset while walking is the same for everything rendered, so calculate it once
+        walking = 0;
         
-        isWalking = input.isWalking();
-        isRunning = input.isRunning();
+        if (isWalking)
+            walking = Math.sin(count / 6.0) * ((isRunning) ? 2 : 0.8);
+        
+        //the camera has moved so update the frustum
+        updateFrustum();
+        
+        //remove any sprites that were not rendered last frame
+        sprites.reset();
+        
+        //the walls from last frame no longer cover anything
+        resetWallSpans();
+    }
+    
+    /**
+     * Mark every column as having no wall, so the floor/ceiling will render every pixel
+     */
+    private void resetWallSpans()
+    {
+        Arrays.fill(wallTop, getHeight());
+        Arrays.fill(wallBottom, 0);
+        
+        wallSpans = false;
+    }
+    
+    /**
+     * Build the left and right side of the camera frustum from the direction the hero is facing.<br>
+     * The sides match the left and right edge of the screen.
+     */
+    private void updateFrustum()
+    {
+        //how far to the side the edge of the screen is for each step forward
+        final double edge = (getWidth() / 2.0) / getHeight();
+        
+        //forward is (sine, cosine) and right is (cosine, -sine)
+        frustumLeftX = edge * sine + cosine;
+        frustumLeftZ = edge * cosine - sine;
+        frustumRightX = edge * sine - cosine;
+        frustumRightZ = edge * cosine + sine;
+        
+        //normalize so we can compare distances
+        final double length = Math.sqrt(frustumLeftX * frustumLeftX + frustumLeftZ * frustumLeftZ);
+        
+        frustumLeftX /= length;
+        frustumLeftZ /= length;
+        frustumRightX /= length;
+        frustumRightZ /= length;
+        
+        //reset the count for the new frame
+        culled = 0;
+        occluded = 0;
+    }
+    
+    /**
+     * Get the number of objects that were not rendered because they were outside the camera frustum
+     * @return The number of blocks, wall faces and sprites culled since the last update
+     */
+    public int getCulled()
+    {
+        return this.culled;
+    }
+    
+    /**
+     * Get the number of sprites that were not rendered because they were behind walls
+     * @return The number of sprites hidden by walls since the last update
+     */
+    public int getOccluded()
+    {
+        return this.occluded;
+    }
+    
+    /**
+     * Is the column of the sprite hidden by the closest wall in that column
+     * @param x The column on the screen
+     * @param depth The depth of the sprite
+     * @return true if the wall is the same depth or closer than the sprite, false otherwise
+     */
+    private boolean isOccluded(final int x, final double depth)
+    {
+        //no wall was rendered in this column
+        if (zBufferWall[x] <= 0)
+            return false;
+        
+        //compare the same way the wall depth is stored in the zBuffer
+        return (1 / zBufferWall[x] * 8 <= depth);
+    }
+    
+    /**
+     * Is the location within the camera frustum
+     * @param x The x location of the object we want to check
+     * @param z The z location of the object we want to check
+     * @param radius How far the object extends from the location
+     * @return true if any part of the object may be seen, false otherwise
+     */
+    private boolean isInFrustum(final double x, final double z, final double radius)
+    {
+        final double dx = x - (right / 16);
+        final double dz = z - (forward / 16);
+        
+        //is the object behind the camera
+        if (dx * sine + dz * cosine < -radius)
+            return false;
+        
+        //is the object past the left side of the screen
+        if (dx * frustumLeftX + dz * frustumLeftZ < -radius)
+            return false;
+        
+        //is the object past the right side of the screen
+        if (dx * frustumRightX + dz * frustumRightZ < -radius)
+            return false;
+        
+        return true;
+    }
+    
+    /**
+     * Is any part of the wall within the camera frustum
+     * @param xLeft x left location
+     * @param xRight x right location
+     * @param zLeft depth of left side
+     * @param zRight depth of right side
+     * @return false if both sides of the wall are outside the same side of the frustum, true otherwise
+     */
+    private boolean isInFrustum(final double xLeft, final double xRight, final double zLeft, final double zRight)
+    {
+        final double dxLeft = xLeft - (right / 16);
+        final double dzLeft = zLeft - (forward / 16);
+        final double dxRight = xRight - (right / 16);
+        final double dzRight = zRight - (forward / 16);
+        
+        //are both sides too close or behind the camera
+        if ((dxLeft * sine + dzLeft * cosine) * 2 < CLIP && (dxRight * sine + dzRight * cosine) * 2 < CLIP)
+            return false;
+        
+        //are both sides past the left side of the screen
+        if (dxLeft * frustumLeftX + dzLeft * frustumLeftZ < 0 && dxRight * frustumLeftX + dzRight * frustumLeftZ < 0)
+            return false;
+        
+        //are both sides past the right side of the screen
+        if (dxLeft * frustumRightX + dzLeft * frustumRightZ < 0 && dxRight * frustumRightX + dzRight * frustumRightZ < 0)
+            return false;
+        
+        return true;
+    }
+    
+    /**
+     * Set the engine used to render the walls
+     * @param raycast true to cast 1 ray per screen column through the level, false to check every block in range
+     */
+    public void setRaycast(final boolean raycast)
+    {
+        this.raycast = raycast;
+        
+        //the static layer was rendered with the old setting
+        this.staticValid = false;
+    }
+    
+    /**
+     * Are the walls rendered by casting 1 ray per screen column
+     * @return true if raycasting, false if every block in range is checked
+     */
+    public boolean isRaycast()
+    {
+        return this.raycast;
+    }
+    
+    /**
+     * Set how the wall and sprite textures are stepped through
+     * @param fixedPoint true to use fixed point math with no divide for each pixel, false to use floating point math
+     */
+    public void setFixedPoint(final boolean fixedPoint)
+    {
+        this.fixedPoint = fixedPoint;
+        
+        //the static layer was rendered with the old setting
+        this.staticValid = false;
+    }
+    
+    /**
+     * Are the wall and sprite textures stepped through with fixed point math
+     * @return true if fixed point math is used, false otherwise
+     */
+    public boolean isFixedPoint()
+    {
+        return this.fixedPoint;
+    }
+    
+    /**
+     * Set how the wall, floor and ceiling textures are sampled
+     * @param mipmaps true to sample a smaller copy of the texture depending on depth, false to always sample the full size texture
+     */
+    public void setMipmaps(final boolean mipmaps)
+    {
+        this.mipmaps = mipmaps;
+        
+        //the static layer was rendered with the old setting
+        this.staticValid = false;
+    }
+    
+    /**
+     * Are smaller copies of the wall, floor and ceiling textures sampled depending on depth
+     * @return true if mipmaps are used, false otherwise
+     */
+    public boolean isMipmaps()
+    {
+        return this.mipmaps;
+    }
+    
+    /**
+     * Set if the floor, ceiling and walls are reused when nothing they depend on has changed since the last frame
+     * @param staticCache true to copy the last frame's floor, ceiling and walls while the camera and doors are still, false to always render them
+     */
+    public void setStaticCache(final boolean staticCache)
+    {
+        this.staticCache = staticCache;
+        this.staticValid = false;
+        
+        //the copy is only needed while the cache is used
+        this.staticPixels = (staticCache) ? new int[getWidth() * getHeight()] : null;
+    }
+    
+    /**
+     * Are the floor, ceiling and walls reused when nothing they depend on has changed since the last frame
+     * @return true if the static layer is cached, false otherwise
+     */
+    public boolean isStaticCache()
+    {
+        return this.staticCache;
+    }
+    
+    /**
+     * Was the static layer reused for the current frame
+     * @return true if the floor, ceiling and walls were copied from the last frame, false if they were rendered
+     */
+    public boolean isStaticReused()
+    {
+        return this.staticReused;
+    }
+    
+    /**
+     * Set the rooms that can be seen from each room, anything in a room that can't be seen will not be rendered
+     * @param visibility The potentially visible set of each room, if null everything in range will be rendered
+     */
+    public void setVisibility(final RoomVisibility visibility)
+    {
+        this.visibility = visibility;
+    }
+    
+    /**
+     * Render the walls, then the floor and ceiling in the pixels above and below them.<br>
+     * If the static layer is cached and the camera, level and doors have not changed since the last frame, 
+     * the pixels are copied from the last frame and the depth buffers are left as they are, since sprites do not write to them.
+     * @param textures Collection of textures.
+     * @param level The level containing the walls
+     */
+    public void renderStatic(final Textures textures, final Level level)
+    {
+        //move any door face that changed since the last frame
+        if (level.getFaces() != null)
+            level.getFaces().update(snapshot);
+        
+        staticReused = (staticCache && isStaticUnchanged(textures, level));
+        
+        if (staticReused)
+        {
+            System.arraycopy(staticPixels, 0, getPixels(), 0, staticPixels.length);
+            return;
+        }
+        
+        //draw the walls first so the floor/ceiling only has to fill the pixels around them
+        renderWalls(textures, level);
+        renderTopBottom(textures);
+        
+        if (staticCache)
+        {
+            //store what the static layer was rendered from
+            staticForward = forward;
+            staticRight = right;
+            staticUp = up;
+            staticWalking = walking;
+            staticRotation = rotation;
+            staticPlayerX = playerX;
+            staticPlayerZ = playerZ;
+            staticTextures = textures;
+            staticLevel = level;
+            staticVisibility = visibility;
+            staticDoorChanges = (level.getFaces() != null) ? level.getFaces().getChanges() : 0;
+            
+            System.arraycopy(getPixels(), 0, staticPixels, 0, staticPixels.length);
+            
+            staticValid = true;
+        }
+    }
+    
+    /**
+     * Is the static layer from the last frame the same as it would be if rendered now
+     * @param textures Collection of textures.
+     * @param level The level containing the walls
+     * @return true if the camera, level, textures, visibility and doors have not changed, false otherwise
+     */
+    private boolean isStaticUnchanged(final Textures textures, final Level level)
+    {
+        if (!staticValid)
+            return false;
+        
+        //we can only tell when a door has moved from the wall faces
+        if (level.getFaces() == null)
+            return false;
+        
+        return (forward == staticForward && right == staticRight && up == staticUp && walking == staticWalking && rotation == staticRotation &&
+                playerX == staticPlayerX && playerZ == staticPlayerZ && 
+                textures == staticTextures && level == staticLevel && visibility == staticVisibility && 
+                level.getFaces().getChanges() == staticDoorChanges);
     }
     
     /**
      * Render the floor and ceiling.<br> 
-     * We do both here for optimization purposes.
+     * We do both here for optimization purposes.<br>
+     * If we have more than 1 thread the rows will be split into bands and rendered in parallel.
      * @param textures Collection of textures.
      */
     public void renderTopBottom(final Textures textures)
+    {
+        final long start = System.nanoTime();
+        
+        //the static layer is being drawn over
+        staticValid = false;
+        
+        if (pool == null)
+        {
+            //render all rows on the current thread
+            renderTopBottom(textures, 0, getHeight());
+        }
+        else
+        {
+            //split the rows into bands and wait until every band is rendered
+            pool.invoke(new TopBottomBand(textures, 0, getHeight(), getBandHeight()));
+        }
+        
+        Metrics.RENDER_TOP_BOTTOM.record(System.nanoTime() - start);
+    }
+    
+    /**
+     * Get the number of rows each worker will render at a time.<br>
+     * We create more bands than threads so the work is balanced between them.
+     * @return The minimum number of rows in a band
+     */
+    private int getBandHeight()
+    {
+        final int rows = getHeight() / (threads * 4);
+        
+        return (rows < 1) ? 1 : rows;
+    }
+    
+    /**
+     * Render the floor and ceiling for the specified rows.<br>
+     * Each row only writes to its own pixels so bands can be rendered at the same time.
+     * @param textures Collection of textures.
+     * @param startY The first row to render
+     * @param endY The row to stop at (exclusive)
+     */
+    private void renderTopBottom(final Textures textures, final int startY, final int endY)
     {
         //our depth for each floor/ceiling piece
         double z;
@@ -110,40 +679,92 @@ public class Render3D extends Render
         //are we dealing with the floor
         boolean floor;
         
-        for (int y=0; y < getHeight(); y++)
+        //the distance between the camera and the floor/ceiling
+        double height;
+        
+        //the middle of the screen horizontally
+        final double middle = getWidth() / 2.0;
+        
+        final int[] pixels = getPixels();
+        
+        //have any walls been drawn this frame
+        final boolean hasWalls = wallSpans;
+        
+        for (int y = startY; y < endY; y++)
         {
             //at first assume we are rendering the floor
             floor = true;
             
             double ceiling = (y - getHeight() / 2.0) / getHeight();
             
-            walking = Math.sin(count / 6.0) * 0.8;
-            
-            z = (floorPosition + up + walking) / ceiling;
+            height = floorPosition + up + walking;
+            z = height / ceiling;
             
-            if (isRunning)
+            if (ceiling < 0)
             {
-                walking = Math.sin(count / 6.0) * 2;
-                z = (floorPosition + up + walking) / ceiling;
+                height = ceilingPostion - up - walking;
+                z = height / -ceiling;
+                
+                //this is part of the ceiling
+                floor = false;
             }
             
-            if (!isWalking)
-            {
-                walking = 0;
-                z = (floorPosition + up + walking) / ceiling;
-            }
+            //the first pixel in this row
+            final int start = y * getWidth();
             
-            if (ceiling < 0)
+            //only render pixels certain depth
+            if (z > depthLimit)
             {
-                z = (ceilingPostion - up - walking) / -ceiling;
+                if (!hasWalls)
+                {
+                    //every pixel in this row has the same depth, filling the whole row at once is faster than writing each pixel
+                    Arrays.fill(zBuffer, start, start + getWidth(), z);
+                    Arrays.fill(pixels, start, start + getWidth(), 0);
+                }
+                else
+                {
+                    for (int x = 0; x < getWidth(); x++)
+                    {
+                        //skip the pixels a wall has been drawn to
+                        if (y >= wallTop[x] && y < wallBottom[x])
+                            continue;
+                        
+                        zBuffer[start + x] = z;
+                        pixels[start + x] = 0;
+                    }
+                }
                 
-                //this is part of the ceiling
-                floor = false;
+                continue;
             }
             
+            //every pixel in this row has the same depth
+            if (!hasWalls)
+                Arrays.fill(zBuffer, start, start + getWidth(), z);
+            
+            //every pixel in this row has the same depth so they will have the same brightness
+            final int brightness = shade.getBrightness(z);
+            
+            //the texels covered by each pixel grow with depth across the row, and even faster from one row to the next
+            final int level = (mipmaps) ? Textures.getMipLevel(Math.max(z, z * z / height) / getHeight()) : 0;
+            
+            //the floor/ceiling texture is the same for every pixel in this row
+            final int[] atlas = textures.getAtlas(level);
+            final int offset = Textures.getOffset((floor) ? Textures.Key.FloorWood : Textures.Key.Ceiling1, level);
+            final int mask = (Textures.SIZE >> level) - 1;
+            final int bits = Textures.SIZE_BITS - level;
+            
             for (int x=0; x < getWidth(); x++)
             {
-                double depth = (x - getWidth() / 2.0) / getHeight();
+                if (hasWalls)
+                {
+                    //skip the pixels a wall has been drawn to
+                    if (y >= wallTop[x] && y < wallBottom[x])
+                        continue;
+                    
+                    zBuffer[start + x] = z;
+                }
+                
+                double depth = (x - middle) / getHeight();
                 depth *= z;
                 
                 double xx = depth * cosine + z * sine;
@@ -152,45 +773,82 @@ public class Render3D extends Render
                 int xPix = (int)(xx + right);
                 int yPix = (int)(yy + forward);
                 
-                final int index = x + y * getWidth();
-                
-                zBuffer[index] = z;
+                pixels[start + x] = shade.apply(atlas[offset + ((xPix >> level) & mask) + (((yPix >> level) & mask) << bits)], brightness);
+            }
+        }
+    }
+    
+    /**
+     * A horizontal band of floor/ceiling rows.<br>
+     * The band will keep splitting in half until it is small enough to render.
+     */
+    private final class TopBottomBand extends RecursiveAction
+    {
+        //collection of textures
+        private final Textures textures;
+        
+        //the rows this band covers
+        private final int startY, endY;
+        
+        //the band will not split if it has this many rows or less
+        private final int rows;
+        
+        private TopBottomBand(final Textures textures, final int startY, final int endY, final int rows)
+        {
+            this.textures = textures;
+            this.startY = startY;
+            this.endY = endY;
+            this.rows = rows;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (endY - startY <= rows)
+            {
+                //small enough to render
+                renderTopBottom(textures, startY, endY);
+            }
+            else
+            {
+                //split the band in half
+                final int middleY = startY + ((endY - startY) / 2);
                 
-                //only render pixels certain depth
-                if (z > depthLimit)
-                {
-                    getPixels()[index] = 0;
-                }
-                else
-                {
-                    if (floor)
-                    {
-                        tmpTexture = textures.getTexture(Textures.Key.FloorWood);
-                        
-                        //render floor
-                        getPixels()[index] = tmpTexture.getPixels()[(xPix & (tmpTexture.getWidth() - 1)) + (yPix & (tmpTexture.getWidth()-1)) * tmpTexture.getWidth()];
-                    }
-                    else
-                    {
-                        tmpTexture = textures.getTexture(Textures.Key.Ceiling1);
-                        
-                        //render ceiling
-                        getPixels()[index] = tmpTexture.getPixels()[(xPix & (tmpTexture.getWidth()-1)) + (yPix & (tmpTexture.getWidth()-1)) * tmpTexture.getWidth()];
-                    }
-                }
+                invokeAll(
+                    new TopBottomBand(textures, startY, middleY, rows), 
+                    new TopBottomBand(textures, middleY, endY, rows));
             }
         }
     }
     
     /**
-     * Draw our walls
+     * Draw our walls, the door faces have to be moved to the snapshot first
      */
     public void renderWalls(final Textures textures, final Level level)
     {
+        final long start = System.nanoTime();
+        
+        renderAllWalls(textures, level);
+        
+        Metrics.RENDER_WALLS.record(System.nanoTime() - start);
+    }
+    
+    private void renderAllWalls(final Textures textures, final Level level)
+    {
+        //the static layer is being drawn over
+        staticValid = false;
+        
         //reset our wall depth buffer to 0
-        for (int x=0; x < zBufferWall.length; x++)
+        Arrays.fill(zBufferWall, 0);
+        
+        //no walls have been drawn yet
+        resetWallSpans();
+        
+        //cast a ray for each column instead
+        if (raycast)
         {
-            this.zBufferWall[x] = 0;
+            renderWallsRaycast(textures, level);
+            return;
         }
         
         //we do we start and end
@@ -199,6 +857,14 @@ public class Render3D extends Render
         final int startZ = playerZ - RENDER_RANGE;
         final int endZ = playerZ + RENDER_RANGE;
         
+        //use the wall faces found when the level was created
+        if (level.getFaces() != null)
+        {
+            //the door faces were already moved by renderStatic()
+            renderFaces(textures, level.getFaces(), startX, endX, startZ, endZ);
+            return;
+        }
+        
         final double extra = 1;
         
         Block block, east, south;
@@ -216,6 +882,17 @@ public class Render3D extends Render
                 if (zBlock < 0 || zBlock >= level.getRowCount() || !hasRangeZ(zBlock))
                     continue;
                 
+                //skip blocks in rooms that can't be seen
+                if (!isVisible(xBlock, zBlock))
+                    continue;
+                
+                //skip blocks outside of the view
+                if (!isInFrustum(xBlock + 0.5, zBlock + 0.5, BLOCK_RADIUS))
+                {
+                    culled++;
+                    continue;
+                }
+                
                 block = level.getBlock(xBlock, zBlock);
                 
                 east = level.getBlock(xBlock + extra, zBlock);
@@ -234,35 +911,35 @@ public class Render3D extends Render
                             if (!block.getDoor().isSecret())
                             {
                                 //increase depth for the door
-                                renderWall(xBlock + extra - doorDepth, xBlock + extra - doorDepth, zBlock + (extra * progress), zBlock + extra + (extra * progress), 0.5, textures.getTexture(block.getEast()));
+                                renderWall(xBlock + extra - doorDepth, xBlock + extra - doorDepth, zBlock + (extra * progress), zBlock + extra + (extra * progress), 0.5, textures, block.getEast());
                             }
                             else
                             {
                                 //if the door is closed the depth will be the same as the other walls
-                                if (block.getDoor().isClosed())
+                                if (isClosed(block.getDoor()))
                                 {
-                                    renderWall(xBlock + extra, xBlock + extra, zBlock + (extra * progress), zBlock + extra + (extra * progress), 0.5, textures.getTexture(block.getEast()));
+                                    renderWall(xBlock + extra, xBlock + extra, zBlock + (extra * progress), zBlock + extra + (extra * progress), 0.5, textures, block.getEast());
                                 }
                                 else
                                 {
                                     //increase depth very little
-                                    renderWall(xBlock + extra - doorSecretDepth, xBlock + extra - doorSecretDepth, zBlock + (extra * progress), zBlock + extra + (extra * progress), 0.5, textures.getTexture(block.getEast()));
+                                    renderWall(xBlock + extra - doorSecretDepth, xBlock + extra - doorSecretDepth, zBlock + (extra * progress), zBlock + extra + (extra * progress), 0.5, textures, block.getEast());
                                 }
                             }
                         }
                         else
                         {
-                            renderWall(xBlock + extra, xBlock + extra, zBlock, zBlock + extra, 0.5, textures.getTexture(block.getEast()));
+                            renderWall(xBlock + extra, xBlock + extra, zBlock, zBlock + extra, 0.5, textures, block.getEast());
                         }
                     }
                     else
                     {
                         if (block.isDoor())
-                            renderWall(xBlock + extra, xBlock + extra, zBlock + extra, zBlock, 0.5, textures.getTexture(east.getWest()));
+                            renderWall(xBlock + extra, xBlock + extra, zBlock + extra, zBlock, 0.5, textures, east.getWest());
                         
                         //draw side wall of door
                         if (east.isDoor())
-                            renderWall(xBlock + extra, xBlock + extra, zBlock, zBlock + extra, 0.5, textures.getTexture(block.getEast()));
+                            renderWall(xBlock + extra, xBlock + extra, zBlock, zBlock + extra, 0.5, textures, block.getEast());
                     }
                     
                     //draw north wall
@@ -276,96 +953,402 @@ public class Render3D extends Render
                             if (!block.getDoor().isSecret())
                             {
                                 //increase depth for the door
-                                renderWall(xBlock + extra + (extra * progress), xBlock + (extra * progress), zBlock + extra - doorDepth, zBlock + extra - doorDepth, 0.5, textures.getTexture(block.getSouth()));
+                                renderWall(xBlock + extra + (extra * progress), xBlock + (extra * progress), zBlock + extra - doorDepth, zBlock + extra - doorDepth, 0.5, textures, block.getSouth());
                             }
                             else
                             {
                                 //if the door is closed the depth will be the same as the other walls
-                                if (block.getDoor().isClosed())
+                                if (isClosed(block.getDoor()))
                                 {
-                                    renderWall(xBlock + extra + (extra * progress), xBlock + (extra * progress), zBlock + extra, zBlock + extra, 0.5, textures.getTexture(block.getSouth()));
+                                    renderWall(xBlock + extra + (extra * progress), xBlock + (extra * progress), zBlock + extra, zBlock + extra, 0.5, textures, block.getSouth());
                                 }
                                 else
                                 {
                                     //increase depth very little
-                                    renderWall(xBlock + extra + (extra * progress), xBlock + (extra * progress), zBlock + extra - doorSecretDepth, zBlock + extra - doorSecretDepth, 0.5, textures.getTexture(block.getSouth()));
+                                    renderWall(xBlock + extra + (extra * progress), xBlock + (extra * progress), zBlock + extra - doorSecretDepth, zBlock + extra - doorSecretDepth, 0.5, textures, block.getSouth());
                                 }
                             }
                         }
                         else
                         {
-                            renderWall(xBlock + extra, xBlock, zBlock + extra, zBlock + extra, 0.5, textures.getTexture(block.getSouth()));
+                            renderWall(xBlock + extra, xBlock, zBlock + extra, zBlock + extra, 0.5, textures, block.getSouth());
                         }
                     }
                     else
                     {
                         //draw side wall of door
                         if (block.isDoor())
-                            renderWall(xBlock, xBlock + extra, zBlock + extra, zBlock + extra, 0.5, textures.getTexture(south.getNorth()));
+                            renderWall(xBlock, xBlock + extra, zBlock + extra, zBlock + extra, 0.5, textures, south.getNorth());
                         
                         //draw side wall of door
                         if (south.isDoor())
-                            renderWall(xBlock + extra, xBlock, zBlock + extra, zBlock + extra, 0.5, textures.getTexture(block.getSouth()));
+                            renderWall(xBlock + extra, xBlock, zBlock + extra, zBlock + extra, 0.5, textures, block.getSouth());
                     }
                 }
                 else
                 {
-                    //draw east wall
-                    if (east.isSolid())
-                    {
-                        if (east.isDoor())
-                        {
-                            //get progress for animation
-                            float progress = getProgress(east);
-                            
-                            if (!east.getDoor().isSecret())
-                            {
-                                //increase depth for the door
-                                renderWall(xBlock + extra + doorDepth, xBlock + extra + doorDepth, zBlock + extra + (extra * progress), zBlock + (extra * progress), 0.5, textures.getTexture(east.getWest()));
-                            }
-                            else
-                            {
-                                //increase depth very little
-                                renderWall(xBlock + extra + doorSecretDepth, xBlock + extra + doorSecretDepth, zBlock + extra + (extra * progress), zBlock + (extra * progress), 0.5, textures.getTexture(east.getWest()));
-                            }
-                        }
-                        else
-                        {
-                            renderWall(xBlock + extra, xBlock + extra, zBlock + extra, zBlock, 0.5, textures.getTexture(east.getWest()));
-                        }
-                    }
-                    
-                    //draw south wall
-                    if (south.isSolid())
-                    {
-                        if (south.isDoor())
-                        {
-                            //get progress for animation
-                            float progress = getProgress(south);
-                            
-                            if (!south.getDoor().isSecret())
-                            {
-                                //increase depth for the door
-                                renderWall(xBlock + (extra * progress), xBlock + extra + (extra * progress), zBlock + extra + .5, zBlock + extra + .5, 0.5, textures.getTexture(south.getNorth()));
-                            }
-                            else
-                            {
-                                //increase depth very little
-                                renderWall(xBlock + (extra * progress), xBlock + extra + (extra * progress), zBlock + extra + doorSecretDepth, zBlock + extra + doorSecretDepth, 0.5, textures.getTexture(south.getNorth()));
-                            }
-                        }
-                        else
-                        {
-                            renderWall(xBlock, xBlock + extra, zBlock + extra, zBlock + extra, 0.5, textures.getTexture(south.getNorth()));
-                        }
-                    }
+                    //draw east wall
+                    if (east.isSolid())
+                    {
+                        if (east.isDoor())
+                        {
+                            //get progress for animation
+                            float progress = getProgress(east);
+                            
+                            if (!east.getDoor().isSecret())
+                            {
+                                //increase depth for the door
+                                renderWall(xBlock + extra + doorDepth, xBlock + extra + doorDepth, zBlock + extra + (extra * progress), zBlock + (extra * progress), 0.5, textures, east.getWest());
+                            }
+                            else
+                            {
+                                //increase depth very little
+                                renderWall(xBlock + extra + doorSecretDepth, xBlock + extra + doorSecretDepth, zBlock + extra + (extra * progress), zBlock + (extra * progress), 0.5, textures, east.getWest());
+                            }
+                        }
+                        else
+                        {
+                            renderWall(xBlock + extra, xBlock + extra, zBlock + extra, zBlock, 0.5, textures, east.getWest());
+                        }
+                    }
+                    
+                    //draw south wall
+                    if (south.isSolid())
+                    {
+                        if (south.isDoor())
+                        {
+                            //get progress for animation
+                            float progress = getProgress(south);
+                            
+                            if (!south.getDoor().isSecret())
+                            {
+                                //increase depth for the door
+                                renderWall(xBlock + (extra * progress), xBlock + extra + (extra * progress), zBlock + extra + .5, zBlock + extra + .5, 0.5, textures, south.getNorth());
+                            }
+                            else
+                            {
+                                //increase depth very little
+                                renderWall(xBlock + (extra * progress), xBlock + extra + (extra * progress), zBlock + extra + doorSecretDepth, zBlock + extra + doorSecretDepth, 0.5, textures, south.getNorth());
+                            }
+                        }
+                        else
+                        {
+                            renderWall(xBlock, xBlock + extra, zBlock + extra, zBlock + extra, 0.5, textures, south.getNorth());
+                        }
+                    }
+                }
+            }
+        }
+        
+        block = null;
+        south = null;
+        east = null;
+    }
+    
+    /**
+     * Draw the wall faces found from the blocks in range
+     * @param textures Collection of textures
+     * @param faces The wall faces of the level
+     * @param startX The first column of blocks in range
+     * @param endX The column of blocks to stop at (exclusive)
+     * @param startZ The first row of blocks in range
+     * @param endZ The row of blocks to stop at (exclusive)
+     */
+    private void renderFaces(final Textures textures, final WallFaces faces, final int startX, final int endX, final int startZ, final int endZ)
+    {
+        //check the columns in render range
+        for (int xBlock = Math.max(0, startX); xBlock < endX && xBlock < faces.getColumnCount(); xBlock++)
+        {
+            //stay in range
+            if (!hasRangeX(xBlock))
+                continue;
+            
+            //the faces in each column are stored by row
+            for (int i = faces.getStart(xBlock); i < faces.getEnd(xBlock); i++)
+            {
+                final int zBlock = faces.getRow(i);
+                
+                //we haven't reached the rows in range yet
+                if (zBlock < startZ)
+                    continue;
+                
+                //we are past the rows in range
+                if (zBlock >= endZ)
+                    break;
+                
+                //stay in range
+                if (!hasRangeZ(zBlock))
+                    continue;
+                
+                //skip faces in rooms that can't be seen
+                if (!isVisible(xBlock, zBlock))
+                    continue;
+                
+                //skip faces outside of the view
+                if (!isInFrustum(faces.getXLeft(i), faces.getXRight(i), faces.getZLeft(i), faces.getZRight(i)))
+                {
+                    culled++;
+                    continue;
+                }
+                
+                renderWall(faces.getXLeft(i), faces.getXRight(i), faces.getZLeft(i), faces.getZRight(i), 0.5, textures, faces.getKey(i));
+            }
+        }
+    }
+    
+    /**
+     * Draw our walls by casting 1 ray for each column on the screen.<br>
+     * Each ray will step through the blocks of the level until it hits the first solid face.<br>
+     * The depth of each ray is the same depth used in renderWall() so both will look the same.
+     * @param textures Collection of textures
+     * @param level The level containing the blocks
+     */
+    private void renderWallsRaycast(final Textures textures, final Level level)
+    {
+        //the location of the camera on the level
+        final double cameraX = right / 16;
+        final double cameraZ = forward / 16;
+        
+        //the top and bottom of every wall before the depth is applied
+        final double yCornerTop    = ((-0.5) - (-up * 0.0625 + (walking * -0.0625))) * 2;
+        final double yCornerBottom = ((1 - 0.5) - (-up * 0.0625 + (walking * -0.0625))) * 2;
+        
+        for (int x = 0; x < getWidth(); x++)
+        {
+            //the screen position of this column
+            final double column = (x - getWidth() / 2) / (double)getHeight();
+            
+            //the direction of the ray, 1 step in this direction increases the depth by 1
+            final double directionX = (column * cosine + sine) / 2;
+            final double directionZ = (cosine - column * sine) / 2;
+            
+            //the block the ray is in
+            int blockX = (int)cameraX;
+            int blockZ = (int)cameraZ;
+            
+            //which way will the ray step through the blocks
+            final int stepX = (directionX < 0) ? -1 : 1;
+            final int stepZ = (directionZ < 0) ? -1 : 1;
+            
+            //the depth increase for crossing an entire block
+            final double deltaX = (directionX == 0) ? Double.MAX_VALUE : Math.abs(1 / directionX);
+            final double deltaZ = (directionZ == 0) ? Double.MAX_VALUE : Math.abs(1 / directionZ);
+            
+            //the depth where the ray crosses the next block border
+            double sideX = (directionX == 0) ? Double.MAX_VALUE : ((stepX > 0) ? (blockX + 1 - cameraX) : (cameraX - blockX)) * deltaX;
+            double sideZ = (directionZ == 0) ? Double.MAX_VALUE : ((stepZ > 0) ? (blockZ + 1 - cameraZ) : (cameraZ - blockZ)) * deltaZ;
+            
+            //the depth where the ray entered the current block
+            double depth = 0;
+            
+            //if we are standing in a door check it first
+            if (level.getBlock(blockX, blockZ).isDoor() && renderDoorRaycast(textures, level, x, blockX, blockZ, depth, Math.min(sideX, sideZ), cameraX, cameraZ, directionX, directionZ, yCornerTop, yCornerBottom))
+                continue;
+            
+            //stay within render range
+            while (blockX >= playerX - RENDER_RANGE && blockX <= playerX + RENDER_RANGE && blockZ >= playerZ - RENDER_RANGE && blockZ <= playerZ + RENDER_RANGE)
+            {
+                //did we cross a west/east border
+                final boolean sideWestEast = (sideX < sideZ);
+                
+                //step to the next block
+                if (sideWestEast)
+                {
+                    depth = sideX;
+                    sideX += deltaX;
+                    blockX += stepX;
+                }
+                else
+                {
+                    depth = sideZ;
+                    sideZ += deltaZ;
+                    blockZ += stepZ;
+                }
+                
+                final Block block = level.getBlock(blockX, blockZ);
+                
+                //we can see through empty blocks
+                if (!block.isSolid())
+                    continue;
+                
+                if (block.isDoor())
+                {
+                    //if the door was hit we are done, else we can see through the open part of the door
+                    if (renderDoorRaycast(textures, level, x, blockX, blockZ, depth, Math.min(sideX, sideZ), cameraX, cameraZ, directionX, directionZ, yCornerTop, yCornerBottom))
+                        break;
+                    
+                    continue;
+                }
+                
+                //don't render walls that are too close
+                if (depth < CLIP)
+                    break;
+                
+                //how far along the face of the block was hit, texture side is based on the face the ray entered
+                final double offset;
+                final Textures.Key key;
+                
+                if (sideWestEast)
+                {
+                    final double hitZ = cameraZ + depth * directionZ;
+                    offset = (stepX > 0) ? 1 - (hitZ - Math.floor(hitZ)) : (hitZ - Math.floor(hitZ));
+                    key = (stepX > 0) ? block.getWest() : block.getEast();
+                }
+                else
+                {
+                    final double hitX = cameraX + depth * directionX;
+                    offset = (stepZ > 0) ? (hitX - Math.floor(hitX)) : 1 - (hitX - Math.floor(hitX));
+                    key = (stepZ > 0) ? block.getNorth() : block.getSouth();
+                }
+                
+                //render the column of the wall that was hit
+                renderWallColumnRaycast(textures, key, x, depth, offset, yCornerTop, yCornerBottom);
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Check if the ray hits the door inside the specified block.<br>
+     * The door will be placed and offset the same as renderWalls() so the open part can be seen through.
+     * @param textures Collection of textures
+     * @param level The level containing the blocks
+     * @param x The column on the screen
+     * @param blockX The column of the door block
+     * @param blockZ The row of the door block
+     * @param depthStart The depth where the ray entered the door block
+     * @param depthEnd The depth where the ray leaves the door block
+     * @param cameraX The camera location
+     * @param cameraZ The camera location
+     * @param directionX The ray direction
+     * @param directionZ The ray direction
+     * @param yCornerTop The top of the wall before the depth is applied
+     * @param yCornerBottom The bottom of the wall before the depth is applied
+     * @return true if the door was hit and rendered, false if the ray goes through the open part of the door
+     */
+    private boolean renderDoorRaycast(
+        final Textures textures, final Level level, final int x, final int blockX, final int blockZ, final double depthStart, final double depthEnd, 
+        final double cameraX, final double cameraZ, final double directionX, final double directionZ, final double yCornerTop, final double yCornerBottom)
+    {
+        final Block block = level.getBlock(blockX, blockZ);
+        
+        //get progress for animation
+        final float progress = getProgress(block);
+        
+        //the closest hit found so far
+        double depth = Double.MAX_VALUE;
+        double offset = 0;
+        Textures.Key key = null;
+        
+        //a door facing west/east, only visible if the side we are looking from is open
+        if (directionX != 0 && !level.getBlock(blockX - ((directionX > 0) ? 1 : -1), blockZ).isSolid())
+        {
+            final double doorX;
+            
+            if (directionX > 0)
+            {
+                //looking at the west side
+                doorX = (block.getDoor().isSecret()) ? blockX + doorSecretDepth : blockX + doorDepth;
+            }
+            else
+            {
+                //looking at the east side
+                if (!block.getDoor().isSecret())
+                {
+                    doorX = blockX + 1 - doorDepth;
+                }
+                else
+                {
+                    doorX = (isClosed(block.getDoor())) ? blockX + 1 : blockX + 1 - doorSecretDepth;
+                }
+            }
+            
+            final double tmpDepth = (doorX - cameraX) / directionX;
+            
+            //the door slides along the side as it opens
+            final double tmpOffset = cameraZ + tmpDepth * directionZ - (blockZ + progress);
+            
+            if (tmpDepth >= depthStart - 0.000001 && tmpDepth <= depthEnd && tmpDepth >= CLIP && tmpOffset >= 0 && tmpOffset < 1)
+            {
+                depth = tmpDepth;
+                offset = (directionX > 0) ? 1 - tmpOffset : tmpOffset;
+                key = (directionX > 0) ? block.getWest() : block.getEast();
+            }
+        }
+        
+        //a door facing north/south, only visible if the side we are looking from is open
+        if (directionZ != 0 && !level.getBlock(blockX, blockZ - ((directionZ > 0) ? 1 : -1)).isSolid())
+        {
+            final double doorZ;
+            
+            if (directionZ > 0)
+            {
+                //looking at the north side
+                doorZ = (block.getDoor().isSecret()) ? blockZ + doorSecretDepth : blockZ + doorDepth;
+            }
+            else
+            {
+                //looking at the south side
+                if (!block.getDoor().isSecret())
+                {
+                    doorZ = blockZ + 1 - doorDepth;
+                }
+                else
+                {
+                    doorZ = (isClosed(block.getDoor())) ? blockZ + 1 : blockZ + 1 - doorSecretDepth;
                 }
             }
+            
+            final double tmpDepth = (doorZ - cameraZ) / directionZ;
+            
+            //the door slides along the side as it opens
+            final double tmpOffset = cameraX + tmpDepth * directionX - (blockX + progress);
+            
+            if (tmpDepth < depth && tmpDepth >= depthStart - 0.000001 && tmpDepth <= depthEnd && tmpDepth >= CLIP && tmpOffset >= 0 && tmpOffset < 1)
+            {
+                depth = tmpDepth;
+                offset = (directionZ > 0) ? tmpOffset : 1 - tmpOffset;
+                key = (directionZ > 0) ? block.getNorth() : block.getSouth();
+            }
         }
         
-        block = null;
-        south = null;
-        east = null;
+        //the ray goes through the open part of the door
+        if (key == null)
+            return false;
+        
+        //render the column of the door that was hit
+        renderWallColumnRaycast(textures, key, x, depth, offset, yCornerTop, yCornerBottom);
+        
+        return true;
+    }
+    
+    /**
+     * Render a single column of a wall hit by a ray
+     * @param textures Collection of textures
+     * @param key The texture of the wall, if null nothing will be rendered
+     * @param x The column on the screen
+     * @param depth The depth where the wall was hit
+     * @param offset How far along the face of the wall was hit ranging from 0.0 - 1.0
+     * @param yCornerTop The top of the wall before the depth is applied
+     * @param yCornerBottom The bottom of the wall before the depth is applied
+     */
+    private void renderWallColumnRaycast(final Textures textures, final Textures.Key key, final int x, final double depth, final double offset, final double yCornerTop, final double yCornerBottom)
+    {
+        //don't render if there is no texture
+        if (key == null)
+            return;
+        
+        //the inverted depth of the wall
+        final double zWall = 1.0 / depth;
+        
+        //store the depth of the wall for this column
+        zBufferWall[x] = zWall;
+        
+        //locate the top and bottom y pixels
+        final double yPixelTop    = (yCornerTop    / depth * getHeight()) + (getHeight() / 2.0);
+        final double yPixelBottom = (yCornerBottom / depth * getHeight()) + (getHeight() / 2.0);
+        
+        renderWallColumn(x, zWall, (int)(offset * Textures.SIZE), yPixelTop, yPixelBottom, textures, key);
     }
     
     /**
@@ -376,22 +1359,28 @@ public class Render3D extends Render
      */
     private float getProgress(final Block block)
     {
-        float progress = 0f;
-        
         //if not a door there has been no progress
         if (!block.isDoor())
-            return progress;
+            return 0f;
         
-        if (block.getDoor().isClosed())
-            progress = 0f;
-        if (block.getDoor().isOpen())
-            progress = 1f;
-        if (block.getDoor().isClosing())
-            progress = 1f - block.getDoor().getProgress();
-        if (block.getDoor().isOpening())
-            progress = block.getDoor().getProgress();
+        //the door may have moved since the snapshot was captured
+        if (snapshot != null)
+            return snapshot.getOpenProgress(block.getDoor());
+        
+        return block.getDoor().getOpenProgress();
+    }
+    
+    /**
+     * Is the door closed
+     * @param door The door we want to check
+     * @return true if fully closed when the snapshot was captured, or now if there is no snapshot
+     */
+    private boolean isClosed(final Door door)
+    {
+        if (snapshot != null)
+            return snapshot.isClosed(door);
         
-        return progress;
+        return door.isClosed();
     }
     
     /**
@@ -415,11 +1404,27 @@ public class Render3D extends Render
     }
     
     /**
-     * Render the bonus objects and obstacles
+     * Is the location in a room that can be seen from the room the hero is in
+     * @param x The x location of the object we want to check
+     * @param z The z location of the object we want to check
+     * @return true if the room can be seen or we don't know which rooms can be seen, false otherwise
+     */
+    private boolean isVisible(final double x, final double z)
+    {
+        if (visibility == null)
+            return true;
+        
+        return visibility.isVisible(right / 16, forward / 16, x, z);
+    }
+    
+    /**
+     * Render the bonus objects and obstacles, they are drawn once renderSprites() is called
      * @param objects Our object that contains the bonus items and obstacles
      */
     public void renderLevelObjects(final LevelObjects objects)
     {
+        final long start = System.nanoTime();
+        
         for (int i = 0; i < objects.getBonusItems().size(); i++)
         {
             BonusItem bonus = objects.getBonusItems().get(i);
@@ -427,7 +1432,12 @@ public class Render3D extends Render
             for (int x = 0; x < bonus.getLocations().size(); x++)
             {
                 Cell location = bonus.getLocations().get(x);
-                renderSprite(location.getCol(), 0, location.getRow(), 0, bonus.getPixels(), (int)bonus.getWidth(), (int)bonus.getHeight());
+                
+                //skip items in rooms that can't be seen
+                if (!isVisible(location.getCol(), location.getRow()))
+                    continue;
+                
+                addSprite(location.getCol(), 0, location.getRow(), 0, bonus.getPixels(), bonus.getPalette(), (int)bonus.getWidth(), (int)bonus.getHeight());
             }
         }
         
@@ -438,39 +1448,89 @@ public class Render3D extends Render
             for (int x = 0; x < obstacle.getLocations().size(); x++)
             {
                 Cell location = obstacle.getLocations().get(x);
-                renderSprite(location.getCol(), 0, location.getRow(), 0, obstacle.getPixels(), (int)obstacle.getWidth(), (int)obstacle.getHeight());
+                
+                //skip obstacles in rooms that can't be seen
+                if (!isVisible(location.getCol(), location.getRow()))
+                    continue;
+                
+                addSprite(location.getCol(), 0, location.getRow(), 0, obstacle.getPixels(), obstacle.getPalette(), (int)obstacle.getWidth(), (int)obstacle.getHeight());
             }
         }
+        
+        Metrics.RENDER_LEVEL_OBJECTS.record(System.nanoTime() - start);
     }
     
+    /**
+     * Render the enemies, they are drawn once renderSprites() is called
+     * @param enemies Our object that contains the enemies
+     */
     public void renderEnemies(final Enemies enemies)
     {
+        final long start = System.nanoTime();
+        
         for (int i = 0; i < enemies.getEnemies().size(); i++)
         {
             //get the current enemy
             Enemy enemy = enemies.getEnemies().get(i);
             
+            //skip enemies in rooms that can't be seen
+            if (!isVisible(enemy.getX(), enemy.getZ()))
+                continue;
+            
             //render enemy
-            renderSprite(enemy.getX(), 0, enemy.getZ(), 0, enemy.getPixels(), (int)enemy.getWidth(), (int)enemy.getHeight());
+            addSprite(enemy.getX(), 0, enemy.getZ(), 0, enemy.getPixels(), enemy.getPalette(), (int)enemy.getWidth(), (int)enemy.getHeight());
+        }
+        
+        Metrics.RENDER_ENEMIES.record(System.nanoTime() - start);
+    }
+    
+    /**
+     * Render the obstacles, bonus items and enemies captured in the snapshot, they are drawn once renderSprites() is called
+     * @param snapshot The game update that will be rendered
+     */
+    public void renderSnapshot(final RenderSnapshot snapshot)
+    {
+        final long start = System.nanoTime();
+        
+        for (int i = 0; i < snapshot.getSpriteCount(); i++)
+        {
+            //skip sprites in rooms that can't be seen from where the camera is in this frame
+            if (!isVisible(snapshot.getSpriteX(i), snapshot.getSpriteZ(i)))
+                continue;
+            
+            addSprite(snapshot.getSpriteX(i), 0, snapshot.getSpriteZ(i), 0, snapshot.getSpritePixels(i), snapshot.getSpritePalette(i), snapshot.getSpriteWidth(i), snapshot.getSpriteHeight(i));
         }
+        
+        Metrics.RENDER_SNAPSHOT.record(System.nanoTime() - start);
     }
     
     /**
-     * Draw Sprite at the specified location
+     * Project the sprite at the specified location onto the screen and add it to the sprites rendered by renderSprites()
      * @param x x-coordinate
      * @param y y-coordinate (height)
      * @param z z-coordinate (depth)
      * @param heightOffset Offset variable for the height
-     * @param tmpPixels Pixel array containing image data
+     * @param tmpPixels Palette index of each pixel of the image
+     * @param palette The color of each palette index
      * @param imageWidth Width of original 2d image
      * @param imageHeight Height of original 2d image
      */
-    public void renderSprite(final double x, final double y, final double z, final double heightOffset, final int[] tmpPixels, final int imageWidth, final int imageHeight)
+    public void addSprite(final double x, final double y, final double z, final double heightOffset, final byte[] tmpPixels, final int[] palette, final int imageWidth, final int imageHeight)
     {
         //only sprites within a certain range will be rendered
         if (!hasRangeZ(z) || !hasRangeX(x))
             return;
         
+        //scale so the sprite will be bigger, the size on screen has to follow the render height like the walls do
+        final double scale = SPRITE_SCALE * (getHeight() / (double)Shared.ORIGINAL_HEIGHT);
+        
+        //skip sprites outside of the view, the sprite extends this far on each side
+        if (!isInFrustum(x, z, (imageWidth * scale) / (2.0 * getHeight())))
+        {
+            culled++;
+            return;
+        }
+        
         //adjustment variables
         final double upCorrect = -0.125;
         final double rightCorrect = 0.0625;
@@ -494,9 +1554,6 @@ public class Render3D extends Render
         double xPixel = rotX / rotZ  * getHeight() + xCenter;
         double yPixel = rotY / rotZ  * getHeight() + yCenter;
         
-        //scale so the sprite will be bigger
-        final double scale = 6.0;
-        
         //the left and right x pixels, manipulate these to increase the width of the sprite
         double xPixelL = xPixel - (imageWidth * scale) / rotZ;
         double xPixelR = xPixel + (imageWidth * scale) / rotZ;
@@ -524,6 +1581,88 @@ public class Render3D extends Render
         //this affects brightness
         rotZ *= 8;
         
+        //the first column of the sprite on the screen before any are skipped
+        final int xFirst = xpl;
+        
+        //skip the columns on each side that are behind the walls
+        while (xpl < xpr && isOccluded(xpl, rotZ))
+            xpl++;
+        while (xpr > xpl && isOccluded(xpr - 1, rotZ))
+            xpr--;
+        
+        //the sprite is completely hidden behind the walls
+        if (xpl >= xpr)
+        {
+            occluded++;
+            return;
+        }
+        
+        //every pixel of the sprite will have the same brightness
+        final int brightness = shade.getBrightness(rotZ);
+        
+        sprites.add(rotZ, xPixelL, xPixelR, yPixelU, yPixelD, xpl, xpr, ypu, ypd, xFirst, brightness, tmpPixels, palette, imageWidth, imageHeight);
+    }
+    
+    /**
+     * Render all sprites that were added this frame from the closest to the farthest.<br>
+     * Each pixel written is marked as covered so the farther sprites skip it without checking the zBuffer or the texture.
+     */
+    public void renderSprites()
+    {
+        final long start = System.nanoTime();
+        
+        sprites.sort();
+        
+        //use a new stamp so the pixels covered last frame are not skipped
+        stamp++;
+        
+        //the stamp wrapped around so clear the old stamps
+        if (stamp == 0)
+        {
+            Arrays.fill(coverage, 0);
+            stamp = 1;
+        }
+        
+        for (int i = 0; i < sprites.getCount(); i++)
+        {
+            //step through the texture instead of dividing for every pixel
+            if (fixedPoint)
+            {
+                renderSpriteFixed(sprites.getIndex(i));
+            }
+            else
+            {
+                renderSprite(sprites.getIndex(i));
+            }
+        }
+        
+        //the sprites have been rendered
+        sprites.reset();
+        
+        Metrics.RENDER_SPRITES.record(System.nanoTime() - start);
+    }
+    
+    /**
+     * Draw the sprite pixels to our destination
+     * @param index The index of the sprite in the batch
+     */
+    private void renderSprite(final int index)
+    {
+        final double depth = sprites.getDepth(index);
+        final double xPixelL = sprites.getXLeft(index);
+        final double xPixelR = sprites.getXRight(index);
+        final double yPixelU = sprites.getYTop(index);
+        final double yPixelD = sprites.getYBottom(index);
+        final int xpl = sprites.getLeft(index);
+        final int xpr = sprites.getRight(index);
+        final int ypu = sprites.getTop(index);
+        final int ypd = sprites.getBottom(index);
+        final int brightness = sprites.getBrightness(index);
+        final byte[] tmpPixels = sprites.getPixels(index);
+        final int[] palette = sprites.getPalette(index);
+        final int imageWidth = sprites.getWidth(index);
+        final int imageHeight = sprites.getHeight(index);
+        
         //fill in sprite pixels to our destination
         for (int yp = ypu; yp < ypd; yp++)
         {
@@ -532,25 +1671,95 @@ public class Render3D extends Render
             
             for (int xp = xpl; xp < xpr; xp++)
             {
-                double pixelRotationX = (xp - xPixelL) / (xPixelR - xPixelL);
-                int xTexture = (int)(pixelRotationX * imageWidth);
+                final int pixelIndex = xp + yp * getWidth();
                 
-                final int index = xp + yp * getWidth();
+                //a closer sprite has already drawn this pixel
+                if (coverage[pixelIndex] == stamp)
+                    continue;
                 
                 //if the pixel is closer than the one than our zBuffer
-                if (zBuffer[index] > rotZ)
+                if (zBuffer[pixelIndex] > depth)
+                {
+                    double pixelRotationX = (xp - xPixelL) / (xPixelR - xPixelL);
+                    int xTexture = (int)(pixelRotationX * imageWidth);
+                    
+                    //get the palette index of a specific pixel
+                    int pixel = tmpPixels[(xTexture & (imageWidth-1)) + (yTexture & (imageHeight-1)) * imageWidth] & 0xff;
+                    
+                    //don't render transparent pixels
+                    if (pixel != SpriteFrames.TRANSPARENT)
+                    {
+                        getPixels()[pixelIndex] = shade.apply(palette[pixel], brightness);
+                        coverage[pixelIndex] = stamp;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Draw the sprite pixels by stepping through the texture with fixed point (16.16) math
+     * @param index The index of the sprite in the batch
+     */
+    private void renderSpriteFixed(final int index)
+    {
+        final double depth = sprites.getDepth(index);
+        final double xPixelL = sprites.getXLeft(index);
+        final double xPixelR = sprites.getXRight(index);
+        final double yPixelU = sprites.getYTop(index);
+        final double yPixelD = sprites.getYBottom(index);
+        final int xFirst = sprites.getFirst(index);
+        final int xpl = sprites.getLeft(index);
+        final int xpr = sprites.getRight(index);
+        final int ypu = sprites.getTop(index);
+        final int ypd = sprites.getBottom(index);
+        final int brightness = sprites.getBrightness(index);
+        final byte[] tmpPixels = sprites.getPixels(index);
+        final int[] palette = sprites.getPalette(index);
+        final int imageWidth = sprites.getWidth(index);
+        final int imageHeight = sprites.getHeight(index);
+        
+        //nothing to render
+        if (xpl >= xpr || ypu >= ypd)
+            return;
+        
+        //how far we move in the texture for each pixel on the screen
+        final int xStep = (int)((imageWidth << FIXED_SHIFT) / (xPixelR - xPixelL));
+        final int yStep = (int)((imageHeight << FIXED_SHIFT) / (yPixelD - yPixelU));
+        
+        //where we start in the texture, step from the first column so skipped columns do not shift the texture
+        final int xStart = (int)Math.max(0, (xFirst - xPixelL) * xStep) + (xpl - xFirst) * xStep;
+        int yTexture = (int)Math.max(0, (ypu - yPixelU) * yStep);
+        
+        for (int yp = ypu; yp < ypd; yp++)
+        {
+            //the row in the texture is the same for every pixel in this row
+            final int row = ((yTexture >> FIXED_SHIFT) & (imageHeight - 1)) * imageWidth;
+            
+            int xTexture = xStart;
+            int pixelIndex = xpl + yp * getWidth();
+            
+            for (int xp = xpl; xp < xpr; xp++)
+            {
+                //if no closer sprite has drawn this pixel and the pixel is closer than the one than our zBuffer
+                if (coverage[pixelIndex] != stamp && zBuffer[pixelIndex] > depth)
                 {
-                    //get the color of a specific pixel
-                    int color = tmpPixels[(xTexture & (imageWidth-1)) + (yTexture & (imageHeight-1)) * imageWidth];
+                    //get the palette index of a specific pixel
+                    final int pixel = tmpPixels[((xTexture >> FIXED_SHIFT) & (imageWidth - 1)) + row] & 0xff;
                     
                     //don't render transparent pixels
-                    if (color != 0xffff00ff && color != 0)
+                    if (pixel != SpriteFrames.TRANSPARENT)
                     {
-                        getPixels()[index] = color;
-                        zBuffer[index] = rotZ;
+                        getPixels()[pixelIndex] = shade.apply(palette[pixel], brightness);
+                        coverage[pixelIndex] = stamp;
                     }
                 }
+                
+                xTexture += xStep;
+                pixelIndex++;
             }
+            
+            yTexture += yStep;
         }
     }
     
@@ -561,12 +1770,13 @@ public class Render3D extends Render
      * @param zDistanceLeft depth of left side
      * @param zDistanceRight depth of right side
      * @param yHeight The height where the image will be drawn
-     * @param wallTexture The image of the wall that we want to draw
+     * @param textures Collection of textures
+     * @param key The texture of the wall that we want to draw, if null nothing will be rendered
      */
-    public void renderWall(final double xLeft, final double xRight, final double zDistanceLeft, final double zDistanceRight, final double yHeight, final Texture wallTexture)
+    public void renderWall(final double xLeft, final double xRight, final double zDistanceLeft, final double zDistanceRight, final double yHeight, final Textures textures, final Textures.Key key)
     {
         //don't render if there is no texture
-        if (wallTexture == null)
+        if (key == null)
             return;
         
         final double upCorrect = 0.0625;
@@ -601,7 +1811,7 @@ public class Render3D extends Render
             return;
         
         double tex30 = 0;
-        double tex40 = wallTexture.getWidth();
+        double tex40 = Textures.SIZE;
         
         //for clipping so walls aren't infinitely drawn
         if (rotLeftSideZ < CLIP)
@@ -651,6 +1861,16 @@ public class Render3D extends Render
         double tex3 = tex30 / rotLeftSideZ;
         double tex4 = tex40 / rotRightSideZ - tex3;
         
+        //step across the wall so each column only needs 1 divide
+        if (fixedPoint)
+        {
+            //the height of the wall on screen is always this times the inverted depth
+            final double yHeightPixels = (yCornerBL - yCornerTL) * getHeight();
+            
+            renderWallFixed(xPixelLeft, xPixelRight, xPixelLeftInt, xPixelRightInt, tex1, tex2, tex3, tex4, yPixelLeftTop, yPixelRightTop, yHeightPixels, textures, key);
+            return;
+        }
+        
         //render every x pixel from the left to the right
         for (int x = xPixelLeftInt; x < xPixelRightInt; x++)
         {
@@ -674,84 +1894,240 @@ public class Render3D extends Render
             double yPixelTop = yPixelLeftTop + (yPixelRightTop - yPixelLeftTop) * pixelRotation;
             double yPixelBottom = yPixelLeftBottom + (yPixelRightBottom - yPixelLeftBottom) * pixelRotation;
             
-            //cast to integer
-            int yPixelTopInt    = (int)yPixelTop;
-            int yPixelBottomInt = (int)yPixelBottom;
+            //render the column of the wall
+            renderWallColumn(x, zWall, xTexture, yPixelTop, yPixelBottom, textures, key);
+        }
+    }
+    
+    /**
+     * Render every column of a wall by stepping the depth and texture location from 1 column to the next.<br>
+     * The width of the wall is divided once, then each column divides once to find its depth and everything else comes from that.
+     * @param xPixelLeft The left side of the wall on the screen
+     * @param xPixelRight The right side of the wall on the screen
+     * @param xPixelLeftInt The first column to render
+     * @param xPixelRightInt The column after the last one to render
+     * @param tex1 The inverted depth of the left side
+     * @param tex2 The inverted depth of the right side
+     * @param tex3 The texture location of the left side divided by its depth
+     * @param tex4 The change in texture location divided by depth from the left to the right side
+     * @param yPixelLeftTop The top y pixel of the left side
+     * @param yPixelRightTop The top y pixel of the right side
+     * @param yHeightPixels The height of the wall on the screen at an inverted depth of 1
+     * @param textures Collection of textures
+     * @param key The texture of the wall
+     */
+    private void renderWallFixed(final double xPixelLeft, final double xPixelRight, final int xPixelLeftInt, final int xPixelRightInt, 
+            final double tex1, final double tex2, final double tex3, final double tex4, final double yPixelLeftTop, final double yPixelRightTop, 
+            final double yHeightPixels, final Textures textures, final Textures.Key key)
+    {
+        //the only divide for the entire wall
+        final double span = 1.0 / (xPixelRight - xPixelLeft);
+        
+        //how far along the wall the first column is
+        final double start = (xPixelLeftInt - xPixelLeft) * span;
+        
+        //how much each value changes from 1 column to the next
+        final double zStep = (tex2 - tex1) * span;
+        final double textureStep = tex4 * span;
+        final double yTopStep = (yPixelRightTop - yPixelLeftTop) * span;
+        
+        //the values at the first column
+        double zWall = tex1 + (tex2 - tex1) * start;
+        double texture = tex3 + tex4 * start;
+        double yPixelTop = yPixelLeftTop + (yPixelRightTop - yPixelLeftTop) * start;
+        
+        //the number of texels each pixel covers at an inverted depth of 1
+        final double texels = Textures.SIZE / yHeightPixels;
+        
+        for (int x = xPixelLeftInt; x < xPixelRightInt; x++, zWall += zStep, texture += textureStep, yPixelTop += yTopStep)
+        {
+            //if the depth of our zBufferWall is greater than the current depth zWall skip this pixel
+            if (zBufferWall[x] > zWall)
+                continue;
+            
+            //set the zWall to the buffer so wall is drawn over other current wall depth
+            zBufferWall[x] = zWall;
             
-            //make sure pixel is within window dimension
-            if (yPixelTopInt < 0)
-                yPixelTopInt = 0;
+            //the only divide for this column, the depth
+            final double inverse = 1 / zWall;
+            
+            renderWallColumnFixed(x, inverse, (int)(texture * inverse), yPixelTop, yPixelTop + (yHeightPixels * zWall), texels * inverse, textures, key);
+        }
+    }
+    
+    /**
+     * Render a single column of a wall
+     * @param x The column on the screen
+     * @param zWall The inverted depth of the wall at this column
+     * @param xTexture The column in the texture we are drawing
+     * @param yPixelTop The top y pixel of the wall
+     * @param yPixelBottom The bottom y pixel of the wall
+     * @param textures Collection of textures
+     * @param key The texture of the wall
+     */
+    private void renderWallColumn(final int x, final double zWall, final int xTexture, final double yPixelTop, final double yPixelBottom, final Textures textures, final Textures.Key key)
+    {
+        //step through the texture instead of dividing for every pixel
+        if (fixedPoint)
+        {
+            renderWallColumnFixed(x, 1 / zWall, xTexture, yPixelTop, yPixelBottom, Textures.SIZE / (yPixelBottom - yPixelTop), textures, key);
+            return;
+        }
+        
+        //mark the rows this wall covers so the floor/ceiling will skip them
+        coverWallSpan(x, yPixelTop, yPixelBottom);
+        
+        //the height of the column gets smaller with depth, so use it to know how many texels each pixel covers
+        final int level = (mipmaps) ? Textures.getMipLevel(Textures.SIZE / (yPixelBottom - yPixelTop)) : 0;
+        
+        //the wall texture is the same for every pixel in this column
+        final int[] atlas = textures.getAtlas(level);
+        final int offset = Textures.getOffset(key, level);
+        
+        final int mask = (Textures.SIZE >> level) - 1;
+        final int bits = Textures.SIZE_BITS - level;
+        
+        //cast to integer
+        int yPixelTopInt    = (int)yPixelTop;
+        int yPixelBottomInt = (int)yPixelBottom;
+        
+        //make sure pixel is within window dimension
+        if (yPixelTopInt < 0)
+            yPixelTopInt = 0;
+        
+        //make sure pixel is within window dimension
+        if (yPixelBottomInt > getHeight())
+            yPixelBottomInt = getHeight();
+        
+        //every pixel in this column has the same depth so they will have the same brightness
+        final double depth = 1 / zWall * 8;
+        final int brightness = shade.getBrightness(depth);
+        
+        //render every y pixel from the top to the bottom
+        for (int y = yPixelTopInt; y < yPixelBottomInt; y++)
+        {
+            //rotate pixel
+            double pixelRotationY = (y - yPixelTop) / (yPixelBottom - yPixelTop);
             
-            //make sure pixel is within window dimension
-            if (yPixelBottomInt > getHeight())
-                yPixelBottomInt = getHeight();
+            //for locating the pixel in the image pixel array
+            int yTexture = (int)(Textures.SIZE * pixelRotationY);
             
-            //render every y pixel from the top to the bottom
-            for (int y = yPixelTopInt; y < yPixelBottomInt; y++)
+            //make sure the index is in boounds
+            if (x >= 0 && x <= getWidth() && y >=0 && y <= getHeight())
             {
-                //rotate pixel
-                double pixelRotationY = (y - yPixelTop) / (yPixelBottom - yPixelTop);
+                //store zBuffer value to help determine pixel brightness (opacity)
+                zBuffer[x + y * getWidth()] = depth;
                 
-                //for locating the pixel in the image pixel array
-                int yTexture = (int)(wallTexture.getWidth() * pixelRotationY);
-                
-                //make sure the index is in boounds
-                if (x >= 0 && x <= getWidth() && y >=0 && y <= getHeight())
+                //if the depth is farther than our limit don't render
+                if (zBuffer[x + y * getWidth()] > depthLimit)
                 {
-                    //store zBuffer value to help determine pixel brightness (opacity)
-                    zBuffer[x + y * getWidth()] = 1 / (tex1 + (tex2 - tex1) * pixelRotation) * 8;
-                    
-                    //if the depth is farther than our limit don't render
-                    if (zBuffer[x + y * getWidth()] > depthLimit)
-                    {
-                        getPixels()[x + y * getWidth()] = 0;
-                    }
-                    else
-                    {
-                        //take the pixel from our image and store in pixel array
-                        getPixels()[x + y * getWidth()] = wallTexture.getPixels()[(xTexture & (wallTexture.getWidth()-1)) + (yTexture & (wallTexture.getWidth()-1)) * wallTexture.getWidth()];
-                    }
+                    getPixels()[x + y * getWidth()] = 0;
+                }
+                else
+                {
+                    //take the pixel from our image and store in pixel array
+                    getPixels()[x + y * getWidth()] = shade.apply(atlas[offset + ((xTexture >> level) & mask) + (((yTexture >> level) & mask) << bits)], brightness);
                 }
             }
         }
     }
     
     /**
-     * This will apply different level of brightness depending on our depth
+     * Add the rows of the wall to the rows covered by walls in the column.<br>
+     * Every wall crosses the middle of the screen, so the rows covered by all walls in a column are always 1 span.
+     * @param x The column on the screen
+     * @param yPixelTop The top y pixel of the wall
+     * @param yPixelBottom The bottom y pixel of the wall
+     */
+    private void coverWallSpan(final int x, final double yPixelTop, final double yPixelBottom)
+    {
+        //the rows will be the same as the ones drawn
+        final int top = Math.max((int)yPixelTop, 0);
+        final int bottom = Math.min((int)yPixelBottom, getHeight());
+        
+        //nothing will be drawn
+        if (top >= bottom)
+            return;
+        
+        if (top < wallTop[x])
+            wallTop[x] = top;
+        if (bottom > wallBottom[x])
+            wallBottom[x] = bottom;
+        
+        wallSpans = true;
+    }
+    
+    /**
+     * Render a single column of a wall by stepping through the texture with fixed point (16.16) math.<br>
+     * Nothing is divided, the depth and the texels each pixel covers are passed in.
+     * @param x The column on the screen
+     * @param inverse The depth of the wall at this column, 1 divided by the inverted depth
+     * @param xTexture The column in the texture we are drawing
+     * @param yPixelTop The top y pixel of the wall
+     * @param yPixelBottom The bottom y pixel of the wall
+     * @param texels The number of texels each pixel covers in this column
+     * @param textures Collection of textures
+     * @param key The texture of the wall
      */
-    public void renderDistanceLimiter()
+    private void renderWallColumnFixed(final int x, final double inverse, final int xTexture, final double yPixelTop, final double yPixelBottom, final double texels, final Textures textures, final Textures.Key key)
     {
-        for (int i=0; i < getPixels().length; i++)
+        //mark the rows this wall covers so the floor/ceiling will skip them
+        coverWallSpan(x, yPixelTop, yPixelBottom);
+        
+        //the height of the column gets smaller with depth, so use it to know how many texels each pixel covers
+        final int level = (mipmaps) ? Textures.getMipLevel(texels) : 0;
+        
+        //the wall texture is the same for every pixel in this column
+        final int[] atlas = textures.getAtlas(level);
+        final int offset = Textures.getOffset(key, level);
+        
+        //cast to integer
+        int yPixelTopInt    = (int)yPixelTop;
+        int yPixelBottomInt = (int)yPixelBottom;
+        
+        //make sure pixel is within window dimension
+        if (yPixelTopInt < 0)
+            yPixelTopInt = 0;
+        
+        //make sure pixel is within window dimension
+        if (yPixelBottomInt > getHeight())
+            yPixelBottomInt = getHeight();
+        
+        //nothing to render
+        if (yPixelTopInt >= yPixelBottomInt)
+            return;
+        
+        //every pixel in this column has the same depth so they will have the same brightness
+        final double depth = inverse * 8;
+        final int brightness = shade.getBrightness(depth);
+        
+        //if the depth is farther than our limit don't render
+        final boolean visible = (depth <= depthLimit);
+        
+        //how far we move in the texture for each pixel on the screen
+        final int yStep = (int)(texels * (1 << FIXED_SHIFT));
+        
+        //where we start in the texture
+        int yTexture = (int)Math.max(0, (yPixelTopInt - yPixelTop) * yStep);
+        
+        final int mask = (Textures.SIZE >> level) - 1;
+        final int bits = Textures.SIZE_BITS - level;
+        
+        //the column in the texture is the same for every pixel
+        final int column = offset + ((xTexture >> level) & mask);
+        
+        int index = x + yPixelTopInt * getWidth();
+        
+        for (int y = yPixelTopInt; y < yPixelBottomInt; y++)
         {
-            /*
-            int color = getPixels()[i];
-            
-            int r = (color >> 16) & 0xff;
-            int g = (color >> 8) & 0xff;
-            int b = (color) & 0xff;
-            
-            getPixels()[i] = r << 16 | g << 8 | b;
-            */
-            
-            int color = getPixels()[i];
-            
-            //the zBuffer contains the depth of objects which will help us determine the brightness
-            int brightness = (int)(renderBrightnessDistance / zBuffer[i]);
-            
-            if (brightness < 0)
-                brightness = 0;
-            if (brightness > 255)
-                brightness = 255;
-            
-            int r = (color >> 16) & 0xff;
-            int g = (color >> 8) & 0xff;
-            int b = (color) & 0xff;
+            //store zBuffer value to help determine pixel brightness (opacity)
+            zBuffer[index] = depth;
             
-            r = r * brightness / 255;
-            g = g * brightness / 255;
-            b = b * brightness / 255;
+            //take the pixel from our image and store in pixel array
+            getPixels()[index] = (visible) ? shade.apply(atlas[column + (((yTexture >> (FIXED_SHIFT + level)) & mask) << bits)], brightness) : 0;
             
-            getPixels()[i] = r << 16 | g << 8 | b;
+            yTexture += yStep;
+            index += getWidth();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,305 @@
+package com.gamesbykevin.wolfenstein.display;
+
+import com.gamesbykevin.framework.base.Cell;
+
+import com.gamesbykevin.wolfenstein.enemies.Enemies;
+import com.gamesbykevin.wolfenstein.enemies.Enemy;
+import com.gamesbykevin.wolfenstein.hero.Input;
+import com.gamesbykevin.wolfenstein.level.Door;
+import com.gamesbykevin.wolfenstein.level.Level;
+import com.gamesbykevin.wolfenstein.level.objects.BonusItem;
+import com.gamesbykevin.wolfenstein.level.objects.LevelObjects;
+import com.gamesbykevin.wolfenstein.level.objects.Obstacle;
+
+/**
+ * Everything the 3d view needs from a single game update, so the frame can be rendered on another thread while the next update runs.<br>
+ * The camera, how far each door is open and every sprite are copied when the snapshot is captured.<br>
+ * The sprites are not culled by room here, the renderer does that from the camera the frame is rendered with.<br>
+ * Nothing is changed once captured, the animation frames are shared since the frames themselves never change.<br>
+ * The camera can be placed between 2 captured updates, so frames rendered in between updates move smoothly.<br>
+ * The snapshots the camera is placed in are reused for every frame, so nothing is created while rendering.
+ */
+public final class RenderSnapshot
+{
+    //the location and angle of the camera
+    private double x, y, z, rotation;
+    private int playerX, playerZ;
+    
+    //the animation count and movement of the hero, used to bob the camera
+    private int count;
+    private boolean walking, running;
+    
+    //how far each door has slid open and if it is closed, by the index of the door
+    private float[] doorOpen;
+    private boolean[] doorClosed;
+    
+    //the location of each sprite
+    private double[] spriteX, spriteZ;
+    
+    //the current animation frame of each sprite and its palette
+    private byte[][] spritePixels;
+    private int[][] spritePalettes;
+    
+    //the size of the animation frame of each sprite
+    private int[] spriteWidths, spriteHeights;
+    
+    //the number of sprites captured
+    private int spriteCount;
+    
+    /**
+     * Capture the current state of the game for rendering
+     * @param input The location and angle of the player the 3d view is rendered from
+     * @param level The level containing the doors, obstacles and bonus items, it has to be created
+     * @param enemies The enemies in the level
+     */
+    public RenderSnapshot(final Input input, final Level level, final Enemies enemies)
+    {
+        this.x = input.getX();
+        this.y = input.getY();
+        this.z = input.getZ();
+        this.rotation = input.getRotation();
+        this.playerX = input.getPlayerX();
+        this.playerZ = input.getPlayerZ();
+        this.count = input.getCount();
+        this.walking = input.isWalking();
+        this.running = input.isRunning();
+        
+        final Door[] doors = level.getDoors();
+        
+        this.doorOpen = new float[doors.length];
+        this.doorClosed = new boolean[doors.length];
+        
+        for (int i = 0; i < doors.length; i++)
+        {
+            this.doorOpen[i] = doors[i].getOpenProgress();
+            this.doorClosed[i] = doors[i].isClosed();
+        }
+        
+        final LevelObjects objects = level.getLevelObjects();
+        
+        //every sprite in the level
+        int capacity = enemies.getEnemies().size();
+        
+        for (int i = 0; i < objects.getBonusItems().size(); i++)
+        {
+            capacity += objects.getBonusItems().get(i).getLocations().size();
+        }
+        
+        for (int i = 0; i < objects.getObstacles().size(); i++)
+        {
+            capacity += objects.getObstacles().get(i).getLocations().size();
+        }
+        
+        this.spriteX = new double[capacity];
+        this.spriteZ = new double[capacity];
+        this.spritePixels = new byte[capacity][];
+        this.spritePalettes = new int[capacity][];
+        this.spriteWidths = new int[capacity];
+        this.spriteHeights = new int[capacity];
+        
+        //the sprites are added in the same order the renderer adds them from the level
+        int index = 0;
+        
+        for (int i = 0; i < objects.getBonusItems().size(); i++)
+        {
+            final BonusItem bonus = objects.getBonusItems().get(i);
+            
+            for (int j = 0; j < bonus.getLocations().size(); j++)
+            {
+                final Cell location = bonus.getLocations().get(j);
+                
+                index = setSprite(index, location.getCol(), location.getRow(), bonus.getPixels(), bonus.getPalette(), (int)bonus.getWidth(), (int)bonus.getHeight());
+            }
+        }
+        
+        for (int i = 0; i < objects.getObstacles().size(); i++)
+        {
+            final Obstacle obstacle = objects.getObstacles().get(i);
+            
+            for (int j = 0; j < obstacle.getLocations().size(); j++)
+            {
+                final Cell location = obstacle.getLocations().get(j);
+                
+                index = setSprite(index, location.getCol(), location.getRow(), obstacle.getPixels(), obstacle.getPalette(), (int)obstacle.getWidth(), (int)obstacle.getHeight());
+            }
+        }
+        
+        for (int i = 0; i < enemies.getEnemies().size(); i++)
+        {
+            final Enemy enemy = enemies.getEnemies().get(i);
+            
+            index = setSprite(index, enemy.getX(), enemy.getZ(), enemy.getPixels(), enemy.getPalette(), (int)enemy.getWidth(), (int)enemy.getHeight());
+        }
+        
+        this.spriteCount = index;
+    }
+    
+    /**
+     * Create an empty snapshot, the camera is placed in it by interpolate()
+     */
+    public RenderSnapshot()
+    {
+        //there is nothing to render until the camera is placed
+    }
+    
+    /**
+     * Place the camera between 2 captured updates, the doors and sprites are the same as the latest update.<br>
+     * This snapshot is written in place, so it can't be rendered while this is called.
+     * @param previous The update before the latest
+     * @param latest The latest update
+     * @param alpha How far the camera is from the previous to the latest update, ranging from 0.0 to 1.0
+     */
+    public void interpolate(final RenderSnapshot previous, final RenderSnapshot latest, final double alpha)
+    {
+        this.x = previous.x + ((latest.x - previous.x) * alpha);
+        this.y = previous.y + ((latest.y - previous.y) * alpha);
+        this.z = previous.z + ((latest.z - previous.z) * alpha);
+        
+        //the rotation wraps around, so turn the shortest way
+        double turn = latest.rotation - previous.rotation;
+        
+        if (turn > Math.PI)
+            turn -= (2 * Math.PI);
+        else if (turn < -Math.PI)
+            turn += (2 * Math.PI);
+        
+        this.rotation = previous.rotation + (turn * alpha);
+        
+        this.playerX = latest.playerX;
+        this.playerZ = latest.playerZ;
+        this.count = latest.count;
+        this.walking = latest.walking;
+        this.running = latest.running;
+        
+        //nothing is changed once captured, so these can be shared
+        this.doorOpen = latest.doorOpen;
+        this.doorClosed = latest.doorClosed;
+        this.spriteX = latest.spriteX;
+        this.spriteZ = latest.spriteZ;
+        this.spritePixels = latest.spritePixels;
+        this.spritePalettes = latest.spritePalettes;
+        this.spriteWidths = latest.spriteWidths;
+        this.spriteHeights = latest.spriteHeights;
+        this.spriteCount = latest.spriteCount;
+    }
+    
+    /**
+     * Store the sprite while the snapshot is being captured
+     * @return The index of the next sprite
+     */
+    private int setSprite(final int index, final double x, final double z, final byte[] pixels, final int[] palette, final int width, final int height)
+    {
+        this.spriteX[index] = x;
+        this.spriteZ[index] = z;
+        this.spritePixels[index] = pixels;
+        this.spritePalettes[index] = palette;
+        this.spriteWidths[index] = width;
+        this.spriteHeights[index] = height;
+        
+        return index + 1;
+    }
+    
+    public double getX()
+    {
+        return this.x;
+    }
+    
+    public double getY()
+    {
+        return this.y;
+    }
+    
+    public double getZ()
+    {
+        return this.z;
+    }
+    
+    public double getRotation()
+    {
+        return this.rotation;
+    }
+    
+    public int getPlayerX()
+    {
+        return this.playerX;
+    }
+    
+    public int getPlayerZ()
+    {
+        return this.playerZ;
+    }
+    
+    public int getCount()
+    {
+        return this.count;
+    }
+    
+    public boolean isWalking()
+    {
+        return this.walking;
+    }
+    
+    public boolean isRunning()
+    {
+        return this.running;
+    }
+    
+    /**
+     * Get how far the door had slid open when the snapshot was captured
+     * @param door The door we want to check
+     * @return The amount open will range from 0.0 (closed) to 1.0 (open)
+     */
+    public float getOpenProgress(final Door door)
+    {
+        return this.doorOpen[door.getIndex()];
+    }
+    
+    /**
+     * Was the door closed when the snapshot was captured
+     * @param door The door we want to check
+     * @return true if fully closed, false otherwise
+     */
+    public boolean isClosed(final Door door)
+    {
+        return this.doorClosed[door.getIndex()];
+    }
+    
+    /**
+     * Get the number of sprites in the level
+     * @return The number of sprites captured
+     */
+    public int getSpriteCount()
+    {
+        return this.spriteCount;
+    }
+    
+    public double getSpriteX(final int index)
+    {
+        return this.spriteX[index];
+    }
+    
+    public double getSpriteZ(final int index)
+    {
+        return this.spriteZ[index];
+    }
+    
+    public byte[] getSpritePixels(final int index)
+    {
+        return this.spritePixels[index];
+    }
+    
+    public int[] getSpritePalette(final int index)
+    {
+        return this.spritePalettes[index];
+    }
+    
+    public int getSpriteWidth(final int index)
+    {
+        return this.spriteWidths[index];
+    }
+    
+    public int getSpriteHeight(final int index)
+    {
+        return this.spriteHeights[index];
+    }
+}
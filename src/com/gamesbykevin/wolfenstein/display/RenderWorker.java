@@ -0,0 +1,202 @@
+package com.gamesbykevin.wolfenstein.display;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import com.gamesbykevin.wolfenstein.level.Level;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This thread will render the 3d view of a game update while the game keeps going.<br>
+ * Once a frame is finished it is copied to our image the next time a snapshot is submitted, so the image is only changed on the game thread.<br>
+ * The frame on screen is always one frame behind, in return the game only takes as long as the slower of updating and rendering.
+ */
+public final class RenderWorker extends Thread implements Disposable
+{
+    //the screen the 3d view is rendered to
+    private Screen3D screen;
+    
+    //the last finished frame, this is what will be drawn
+    private BufferedImage image;
+    
+    //the pixel data of the image
+    private int[] pixels;
+    
+    //released when there is a snapshot to render
+    private final Semaphore submitted = new Semaphore(0);
+    
+    //released when the worker is not rendering
+    private final Semaphore finished = new Semaphore(1);
+    
+    //what will be rendered next
+    private RenderSnapshot snapshot;
+    private Level level;
+    private Textures textures;
+    
+    //has a frame been rendered that has not been copied to our image yet
+    private boolean rendered = false;
+    
+    //the problem that happened while rendering, it will be thrown on the game thread
+    private Exception error;
+    
+    //do we keep rendering
+    private volatile boolean active = true;
+    
+    /**
+     * Create the thread that will render the 3d view
+     * @param screen The screen the 3d view is rendered to
+     */
+    public RenderWorker(final Screen3D screen)
+    {
+        super("Render");
+        
+        this.screen = screen;
+        this.image = new BufferedImage(screen.getWidth(), screen.getHeight(), BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        
+        //don't keep the application running because of this thread
+        setDaemon(true);
+    }
+    
+    /**
+     * Stop rendering and wait for the thread to finish
+     */
+    @Override
+    public void dispose()
+    {
+        active = false;
+        
+        //wake the thread so it can see it is no longer active
+        submitted.release();
+        
+        boolean interrupted = false;
+        
+        //the current frame is finished before the thread stops, nothing it uses can be removed while it is still rendering
+        while (Thread.currentThread() != this && isAlive())
+        {
+            try
+            {
+                join();
+            }
+            catch (InterruptedException e)
+            {
+                //keep waiting, the interrupt is restored once the thread has stopped
+                interrupted = true;
+            }
+        }
+        
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        
+        if (image != null)
+        {
+            image.flush();
+            image = null;
+        }
+        
+        pixels = null;
+        screen = null;
+        snapshot = null;
+        level = null;
+        textures = null;
+    }
+    
+    /**
+     * Render the game update on this thread, this will wait for the previous frame to finish first
+     * @param snapshot The camera, doors and sprites captured from the game update
+     * @param level The level containing the walls
+     * @param textures The wall/floor/ceiling textures
+     * @throws Exception If there was a problem rendering the previous frame
+     */
+    public void submit(final RenderSnapshot snapshot, final Level level, final Textures textures) throws Exception
+    {
+        await();
+        
+        this.snapshot = snapshot;
+        this.level = level;
+        this.textures = textures;
+        
+        //start rendering, the worker will let us know when it is finished
+        submitted.release();
+    }
+    
+    /**
+     * Wait for the frame being rendered to finish, so nothing it uses is changed or removed while rendering
+     * @throws Exception If there was a problem rendering the frame
+     */
+    public void finish() throws Exception
+    {
+        await();
+        
+        //nothing is being rendered
+        finished.release();
+    }
+    
+    /**
+     * Wait for the frame being rendered and copy it to our image, the worker will not be rendering once this returns
+     * @throws Exception If there was a problem rendering the frame
+     */
+    private void await() throws Exception
+    {
+        finished.acquireUninterruptibly();
+        
+        if (error != null)
+        {
+            final Exception e = error;
+            error = null;
+            
+            //nothing is being rendered
+            finished.release();
+            
+            throw e;
+        }
+        
+        if (rendered)
+        {
+            System.arraycopy(screen.getPixels(), 0, pixels, 0, pixels.length);
+            rendered = false;
+        }
+    }
+    
+    @Override
+    public void run()
+    {
+        while (active)
+        {
+            submitted.acquireUninterruptibly();
+            
+            if (!active)
+                break;
+            
+            try
+            {
+                screen.renderPixelData(snapshot, level, textures);
+                rendered = true;
+            }
+            catch (Exception e)
+            {
+                error = e;
+            }
+            finally
+            {
+                //don't hold onto the update once it has been rendered
+                snapshot = null;
+                level = null;
+                textures = null;
+                
+                finished.release();
+            }
+        }
+    }
+    
+    /**
+     * Get the last finished frame
+     * @return The image containing the 3d view of the previous update
+     */
+    public BufferedImage getImage()
+    {
+        return this.image;
+    }
+}
@@ -2,10 +2,16 @@ package com.gamesbykevin.wolfenstein.display;
 
 import com.gamesbykevin.framework.resources.Disposable;
 
+import com.gamesbykevin.wolfenstein.enemies.Enemies;
 import com.gamesbykevin.wolfenstein.engine.Engine;
+import com.gamesbykevin.wolfenstein.hero.Input;
+import com.gamesbykevin.wolfenstein.level.Level;
+import com.gamesbykevin.wolfenstein.metrics.Metrics;
+import com.gamesbykevin.wolfenstein.shared.Shared;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This class will render the 3d objects
@@ -18,18 +24,189 @@ public final class Screen3D extends Render implements Disposable
     //our final image that will be drawn for the 3d objects
     private BufferedImage image;
     
+    //the difference between each resolution scale when the resolution is dynamic
+    private static final double SCALE_STEP = 0.125;
+    
+    //render this much faster than the budget before the resolution is increased
+    private static final double HEADROOM = 0.75;
+    
+    //the number of frames in a row that need to have headroom before the resolution is increased
+    private static final int FRAMES_BEFORE_INCREASE = 30;
+    
+    //the 3d renderer for each resolution scale, each is created the first time it is needed
+    private Render3D[] renders;
+    
+    //the resolution scale of each renderer
+    private double[] scales;
+    
+    //the index of the renderer currently used
+    private int current;
+    
+    //do we change the resolution depending on how long the frame takes to render
+    private boolean dynamic = false;
+    
+    //the time we want each frame to take to render (nano-seconds)
+    private long budget;
+    
+    //the number of frames in a row that rendered with headroom
+    private int frames = 0;
+    
+    //the workers that render the floor/ceiling, shared by the renderer of every resolution scale, null when only 1 thread
+    private ForkJoinPool pool;
+    
     public Screen3D(final int width, final int height) throws Exception
     {
-        super(width, height);
+        this(width, height, new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+    }
+    
+    private Screen3D(final int width, final int height, final BufferedImage image) throws Exception
+    {
+        //the pixel data from the image will be the screen pixels
+        super(width, height, ((DataBufferInt)image.getRaster().getDataBuffer()).getData());
+        
+        //store the image
+        this.image = image;
+        
+        //only create workers if we are rendering in parallel
+        if (Shared.RENDER_THREADS > 1)
+            this.pool = new ForkJoinPool(Shared.RENDER_THREADS);
+        
+        //only the full resolution is used unless the resolution is dynamic
+        this.renders = new Render3D[1];
+        this.scales = new double[]{ 1.0 };
+        this.current = 0;
+        
+        if (Shared.DYNAMIC_RESOLUTION)
+        {
+            //change the resolution to stay within the budget
+            setDynamicResolution(Shared.DYNAMIC_RESOLUTION_MIN_SCALE, Shared.DYNAMIC_RESOLUTION_MAX_SCALE, Shared.RENDER_BUDGET * 1000000L);
+        }
+        else
+        {
+            //create new 3d render object that will draw straight to our image
+            this.render3d = getRender(current);
+        }
+    }
+    
+    /**
+     * Create a new 3d render object with our settings
+     * @param width Width of the 3d view
+     * @param height Height of the 3d view
+     * @return The new 3d render object, it will draw straight to our image if it is the same size
+     * @throws Exception
+     */
+    private Render3D createRender(final int width, final int height) throws Exception
+    {
+        final Render3D render;
+        
+        if (width == getWidth() && height == getHeight())
+        {
+            //draw straight to our image
+            render = new Render3D(width, height, getPixels());
+        }
+        else
+        {
+            //draw to its own pixels that will be scaled to our image
+            render = new Render3D(width, height);
+        }
+        
+        //render the floor/ceiling across the available threads, every resolution scale uses the same workers
+        render.setPool(pool);
+        
+        //choose how the walls will be drawn
+        render.setRaycast(Shared.RAYCAST_WALLS);
+        
+        //choose how the wall/sprite textures will be stepped through
+        render.setFixedPoint(Shared.FIXED_POINT_RASTER);
+        
+        //choose if smaller copies of the textures are sampled for surfaces farther away
+        render.setMipmaps(Shared.MIPMAP_TEXTURES);
+        
+        //choose if the floor, ceiling and walls are reused while the camera is still
+        render.setStaticCache(Shared.STATIC_LAYER_CACHE);
+        
+        return render;
+    }
+    
+    /**
+     * Render the 3d view at a resolution that will change depending on how long each frame takes to render.<br>
+     * If the frame takes longer than the budget the resolution is lowered, if there is enough headroom the resolution is raised.
+     * @param minimum The smallest resolution scale, must be greater than 0
+     * @param maximum The largest resolution scale
+     * @param budget The time we want each frame to take to render (nano-seconds)
+     * @throws Exception
+     */
+    public void setDynamicResolution(final double minimum, final double maximum, final long budget) throws Exception
+    {
+        if (minimum <= 0 || minimum > maximum)
+            throw new Exception("The resolution scale has to be greater than 0 and the minimum can't be more than the maximum: " + minimum + ", " + maximum);
         
-        //create new 3d render object with same dimensions
-        this.render3d = new Render3D(width, height);
+        //remove the existing renderers
+        disposeRenders();
         
-        //create a new image
-        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        //the number of scales from the minimum to the maximum
+        final int count = (int)Math.ceil((maximum - minimum) / SCALE_STEP) + 1;
         
-        //get the pixel data from the image and set as the screen pixels
-        this.setPixels(((DataBufferInt)this.image.getRaster().getDataBuffer()).getData());
+        this.renders = new Render3D[count];
+        this.scales = new double[count];
+        
+        for (int i = 0; i < count; i++)
+        {
+            this.scales[i] = Math.min(minimum + (i * SCALE_STEP), maximum);
+        }
+        
+        //start at the largest resolution
+        this.current = count - 1;
+        this.render3d = getRender(current);
+        
+        this.budget = budget;
+        this.frames = 0;
+        this.dynamic = true;
+    }
+    
+    /**
+     * Get the 3d render object for the resolution scale, it will be created if it does not exist
+     * @param index The index of the resolution scale
+     * @return The 3d render object
+     * @throws Exception
+     */
+    private Render3D getRender(final int index) throws Exception
+    {
+        if (renders[index] == null)
+        {
+            final int width = Math.max(1, (int)(getWidth() * scales[index]));
+            final int height = Math.max(1, (int)(getHeight() * scales[index]));
+            
+            renders[index] = createRender(width, height);
+        }
+        
+        return renders[index];
+    }
+    
+    /**
+     * Get the current resolution scale
+     * @return The scale of the 3d view compared to our image, 1.0 is full resolution
+     */
+    public double getScale()
+    {
+        return this.scales[current];
+    }
+    
+    private void disposeRenders()
+    {
+        if (renders != null)
+        {
+            for (int i = 0; i < renders.length; i++)
+            {
+                if (renders[i] != null)
+                {
+                    renders[i].dispose();
+                    renders[i] = null;
+                }
+            }
+            
+            renders = null;
+        }
     }
     
     @Override
@@ -37,61 +214,199 @@ public final class Screen3D extends Render implements Disposable
     {
         super.dispose();
         
-        render3d.dispose();
+        disposeRenders();
         render3d = null;
         
+        //the renderers no longer use the workers
+        if (pool != null)
+        {
+            pool.shutdown();
+            pool = null;
+        }
+        
         image.flush();
         image = null;
     }
     
     /**
-     * Reset all pixel data to 0
+     * Write pixel data to array for anything 3d: (walls/floor/ceiling/enemies/level-objects).<br>
+     * The pixels are drawn straight to our image at full resolution, and since the walls and floor/ceiling draw every pixel nothing needs to be reset.<br>
+     * At a lower resolution the pixels are scaled to our image.
      */
-    private void resetPixelData()
+    public void renderPixelData(final Engine engine) throws Exception
     {
-        for (int i=0; i < getPixels().length; i++)
-        {
-            getPixels()[i] = 0;
-        }
+        renderPixelData(engine.getManager().getHero().getInput(), engine.getManager().getLevel(), engine.getManager().getTextures(), engine.getManager().getEnemies());
     }
     
     /**
-     * Write pixel data to array for anything 3d: (walls/floor/ceiling/enemies/level-objects)
+     * Write pixel data to array for anything 3d, this does not need the engine so frames can be rendered without a display
+     * @param input The location and angle of the player the 3d view is rendered from
+     * @param level The level containing the walls, obstacles and bonus items
+     * @param textures The wall/floor/ceiling textures
+     * @param enemies The enemies in the level
      */
-    public void renderPixelData(final Engine engine) throws Exception
+    public void renderPixelData(final Input input, final Level level, final Textures textures, final Enemies enemies) throws Exception
     {
-        //reset pixel data
-        resetPixelData();
+        //the time the frame started rendering
+        final long start = System.nanoTime();
         
         //set hero input first to do 3d rendering in perspective to where the player is located
-        render3d.update(engine.getManager().getHero().getInput());
+        render3d.update(input);
+        
+        //only render what is in the rooms that can be seen
+        render3d.setVisibility(level.getVisibility());
+        
+        //draw floor/ceiling and walls, or reuse them from the last frame if nothing has changed
+        render3d.renderStatic(textures, level);
+        
+        //add in game obstacles and bonus items
+        render3d.renderLevelObjects(level.getLevelObjects());
+        
+        //add enemies
+        render3d.renderEnemies(enemies);
+        
+        //draw the obstacles, bonus items and enemies from the closest to the farthest, brightness has already been applied to each pixel as it was drawn
+        render3d.renderSprites();
+        
+        //the 3d view was not drawn straight to our image
+        if (render3d.getPixels() != getPixels())
+            renderScaled(render3d);
+        
+        //the time the frame took to render
+        final long elapsed = System.nanoTime() - start;
+        
+        Metrics.RENDER_FRAME.record(elapsed);
+        
+        //pick the resolution for the next frame
+        if (dynamic)
+            updateResolution(elapsed);
+    }
+    
+    /**
+     * Write pixel data to array for anything 3d from a captured game update, so the frame can be rendered while the next update runs
+     * @param snapshot The camera, doors and sprites captured from the game update
+     * @param level The level containing the walls, only what does not change once the level is created is read
+     * @param textures The wall/floor/ceiling textures
+     */
+    public void renderPixelData(final RenderSnapshot snapshot, final Level level, final Textures textures) throws Exception
+    {
+        //the time the frame started rendering
+        final long start = System.nanoTime();
+        
+        //render in perspective to where the player was located when captured
+        render3d.update(snapshot);
+        
+        //only render what is in the rooms that can be seen
+        render3d.setVisibility(level.getVisibility());
+        
+        //draw floor/ceiling and walls, or reuse them from the last frame if nothing has changed
+        render3d.renderStatic(textures, level);
+        
+        //add the obstacles, bonus items and enemies that were in the rooms that could be seen
+        render3d.renderSnapshot(snapshot);
+        
+        //draw the sprites from the closest to the farthest
+        render3d.renderSprites();
+        
+        //the 3d view was not drawn straight to our image
+        if (render3d.getPixels() != getPixels())
+            renderScaled(render3d);
+        
+        //the time the frame took to render
+        final long elapsed = System.nanoTime() - start;
+        
+        Metrics.RENDER_FRAME.record(elapsed);
+        
+        //pick the resolution for the next frame
+        if (dynamic)
+            updateResolution(elapsed);
+    }
+    
+    /**
+     * Scale the pixels of the 3d view to our image using the closest pixel
+     * @param render The 3d render object that was drawn to
+     */
+    private void renderScaled(final Render render)
+    {
+        final long start = System.nanoTime();
         
-        //draw floor/ceiling
-        render3d.renderTopBottom(engine.getManager().getTextures());
+        final int[] source = render.getPixels();
+        final int[] destination = getPixels();
         
-        //draw walls
-        render3d.renderWalls(engine.getManager().getTextures(), engine.getManager().getLevel());
+        //how far we move in the source for each pixel in our image (16.16 fixed point)
+        final int xStep = (render.getWidth() << 16) / getWidth();
+        final int yStep = (render.getHeight() << 16) / getHeight();
         
-        //draw in game obstacles and bonus items
-        render3d.renderLevelObjects(engine.getManager().getLevel().getLevelObjects());
+        int ySource = 0;
         
-        //draw enemies
-        render3d.renderEnemies(engine.getManager().getEnemies());
+        //the source row of the previous row in our image
+        int previous = -1;
         
-        //apply brightness to pixels based on depth
-        render3d.renderDistanceLimiter();
+        for (int y = 0; y < getHeight(); y++)
+        {
+            final int row = ySource >> 16;
+            
+            if (row == previous)
+            {
+                //the row is the same as the one above so copy it
+                System.arraycopy(destination, (y - 1) * getWidth(), destination, y * getWidth(), getWidth());
+            }
+            else
+            {
+                final int sourceIndex = row * render.getWidth();
+                
+                int index = y * getWidth();
+                int xSource = 0;
+                
+                for (int x = 0; x < getWidth(); x++)
+                {
+                    destination[index++] = source[sourceIndex + (xSource >> 16)];
+                    xSource += xStep;
+                }
+                
+                previous = row;
+            }
+            
+            ySource += yStep;
+        }
         
-        //store pixels to our current instance pixel array
-        for (int i=0; i < render3d.getPixels().length; i++)
+        Metrics.RENDER_SCALE.record(System.nanoTime() - start);
+    }
+    
+    /**
+     * Lower the resolution if the frame went over the budget, raise it if there has been enough headroom
+     * @param elapsed The time it took to render the frame (nano-seconds)
+     * @throws Exception
+     */
+    private void updateResolution(final long elapsed) throws Exception
+    {
+        if (elapsed > budget)
+        {
+            frames = 0;
+            
+            if (current > 0)
+                current--;
+        }
+        else if (elapsed < budget * HEADROOM)
         {
-            //make sure the color exists first
-            if (render3d.getPixels()[i] >= 0)
-                getPixels()[i] = render3d.getPixels()[i];
+            frames++;
+            
+            if (frames >= FRAMES_BEFORE_INCREASE && current < renders.length - 1)
+            {
+                frames = 0;
+                current++;
+            }
         }
+        else
+        {
+            frames = 0;
+        }
+        
+        render3d = getRender(current);
     }
     
     public BufferedImage getImage()
     {
         return this.image;
     }
-}
\ No newline at end of file
+}
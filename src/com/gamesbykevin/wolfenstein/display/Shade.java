@@ -0,0 +1,107 @@
+package com.gamesbykevin.wolfenstein.display;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+/**
+ * Lookup tables that apply brightness to pixels depending on their depth.<br>
+ * The brightness is looked up once for each floor row, wall column and sprite,
+ * then each pixel is shaded as it is written so no extra pass over the screen is needed.
+ */
+public final class Shade implements Disposable
+{
+    //the number of table entries for each unit of depth
+    private static final int DEPTH_PRECISION = 16;
+    
+    //the number of brightness levels, 0 is black and (LEVELS - 1) is full brightness
+    public static final int LEVELS = 256;
+    
+    //the brightness for each depth
+    private int[] brightness;
+    
+    //the shaded value for each brightness/channel combination, already shifted into place
+    private int[] red, green, blue;
+    
+    /**
+     * Create the shade tables
+     * @param brightnessDistance The higher the value the brighter pixels will be at a distance
+     * @param depthLimit The farthest depth that will be rendered
+     */
+    public Shade(final double brightnessDistance, final double depthLimit)
+    {
+        //cover twice the depth limit since sprites are not limited by depth
+        this.brightness = new int[(int)(depthLimit * 2 * DEPTH_PRECISION) + 1];
+        
+        for (int i = 0; i < brightness.length; i++)
+        {
+            //the depth in the middle of this entry
+            final double depth = (i + 0.5) / DEPTH_PRECISION;
+            
+            int value = (int)(brightnessDistance / depth);
+            
+            if (value < 0)
+                value = 0;
+            if (value > LEVELS - 1)
+                value = LEVELS - 1;
+            
+            this.brightness[i] = value;
+        }
+        
+        this.red   = new int[LEVELS * 256];
+        this.green = new int[LEVELS * 256];
+        this.blue  = new int[LEVELS * 256];
+        
+        for (int level = 0; level < LEVELS; level++)
+        {
+            for (int value = 0; value < 256; value++)
+            {
+                final int shaded = value * level / (LEVELS - 1);
+                
+                this.red[(level << 8) | value]   = shaded << 16;
+                this.green[(level << 8) | value] = shaded << 8;
+                this.blue[(level << 8) | value]  = shaded;
+            }
+        }
+    }
+    
+    @Override
+    public void dispose()
+    {
+        brightness = null;
+        red = null;
+        green = null;
+        blue = null;
+    }
+    
+    /**
+     * Get the brightness for the depth
+     * @param depth The depth of the pixel(s)
+     * @return The brightness ranging from 0 - (LEVELS - 1)
+     */
+    public int getBrightness(final double depth)
+    {
+        final int index = (int)(depth * DEPTH_PRECISION);
+        
+        //anything farther than our table will have the darkest value
+        if (index >= brightness.length)
+            return brightness[brightness.length - 1];
+        
+        //anything behind the camera will not be visible
+        if (index < 0)
+            return 0;
+        
+        return brightness[index];
+    }
+    
+    /**
+     * Apply the brightness to the color
+     * @param color The color we want to shade
+     * @param brightness The brightness from getBrightness(depth)
+     * @return The shaded color
+     */
+    public int apply(final int color, final int brightness)
+    {
+        final int level = brightness << 8;
+        
+        return red[level | ((color >> 16) & 0xff)] | green[level | ((color >> 8) & 0xff)] | blue[level | (color & 0xff)];
+    }
+}
@@ -0,0 +1,276 @@
+package com.gamesbykevin.wolfenstein.display;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import java.util.Arrays;
+
+/**
+ * The sprites that will be rendered this frame once they have been projected onto the screen.<br>
+ * The arrays are reused every frame and only grow when there are more sprites than before, so no objects are created while rendering.<br>
+ * The sprites can be sorted by depth so the closest are rendered first.
+ */
+public final class SpriteBatch implements Disposable
+{
+    //the number of sprites we start with room for
+    private static final int CAPACITY = 64;
+    
+    //the depth of each sprite
+    private double[] depth;
+    
+    //the sides of each sprite on the screen before it was kept within the screen
+    private double[] xLeft, xRight, yTop, yBottom;
+    
+    //the pixels of each sprite that will be rendered, the right and bottom are exclusive
+    private int[] left, right, top, bottom;
+    
+    //the first x pixel of each sprite on the screen before the hidden columns were skipped
+    private int[] first;
+    
+    //the brightness of each sprite
+    private int[] brightness;
+    
+    //the current animation frame of each sprite and its palette
+    private byte[][] pixels;
+    private int[][] palettes;
+    
+    //the size of the animation frame of each sprite
+    private int[] widths, heights;
+    
+    //the index of each sprite in the order they will be rendered
+    private int[] order;
+    
+    //the number of sprites
+    private int count = 0;
+    
+    public SpriteBatch()
+    {
+        this.depth = new double[CAPACITY];
+        this.xLeft = new double[CAPACITY];
+        this.xRight = new double[CAPACITY];
+        this.yTop = new double[CAPACITY];
+        this.yBottom = new double[CAPACITY];
+        this.left = new int[CAPACITY];
+        this.right = new int[CAPACITY];
+        this.top = new int[CAPACITY];
+        this.bottom = new int[CAPACITY];
+        this.first = new int[CAPACITY];
+        this.brightness = new int[CAPACITY];
+        this.pixels = new byte[CAPACITY][];
+        this.palettes = new int[CAPACITY][];
+        this.widths = new int[CAPACITY];
+        this.heights = new int[CAPACITY];
+        this.order = new int[CAPACITY];
+    }
+    
+    @Override
+    public void dispose()
+    {
+        depth = null;
+        xLeft = null;
+        xRight = null;
+        yTop = null;
+        yBottom = null;
+        left = null;
+        right = null;
+        top = null;
+        bottom = null;
+        first = null;
+        brightness = null;
+        pixels = null;
+        palettes = null;
+        widths = null;
+        heights = null;
+        order = null;
+    }
+    
+    /**
+     * Remove all sprites, the frames are released so they are not held onto
+     */
+    public void reset()
+    {
+        Arrays.fill(pixels, 0, count, null);
+        Arrays.fill(palettes, 0, count, null);
+        
+        count = 0;
+    }
+    
+    /**
+     * Add a sprite that has been projected onto the screen
+     * @param depth The depth of the sprite
+     * @param xLeft The left side of the sprite before it was kept within the screen
+     * @param xRight The right side of the sprite before it was kept within the screen
+     * @param yTop The top of the sprite before it was kept within the screen
+     * @param yBottom The bottom of the sprite before it was kept within the screen
+     * @param left The left x pixel on the screen
+     * @param right The right x pixel on the screen (exclusive)
+     * @param top The top y pixel on the screen
+     * @param bottom The bottom y pixel on the screen (exclusive)
+     * @param first The first x pixel of the sprite on the screen before the hidden columns were skipped
+     * @param brightness The brightness of every pixel in the sprite
+     * @param pixels Palette index of each pixel of the animation frame
+     * @param palette The color of each palette index
+     * @param width Width of the animation frame
+     * @param height Height of the animation frame
+     */
+    public void add(final double depth, final double xLeft, final double xRight, final double yTop, final double yBottom, final int left, final int right, final int top, final int bottom, final int first, final int brightness, final byte[] pixels, final int[] palette, final int width, final int height)
+    {
+        //make room for another sprite
+        if (count == order.length)
+        {
+            final int capacity = order.length * 2;
+            
+            this.depth = Arrays.copyOf(this.depth, capacity);
+            this.xLeft = Arrays.copyOf(this.xLeft, capacity);
+            this.xRight = Arrays.copyOf(this.xRight, capacity);
+            this.yTop = Arrays.copyOf(this.yTop, capacity);
+            this.yBottom = Arrays.copyOf(this.yBottom, capacity);
+            this.left = Arrays.copyOf(this.left, capacity);
+            this.right = Arrays.copyOf(this.right, capacity);
+            this.top = Arrays.copyOf(this.top, capacity);
+            this.bottom = Arrays.copyOf(this.bottom, capacity);
+            this.first = Arrays.copyOf(this.first, capacity);
+            this.brightness = Arrays.copyOf(this.brightness, capacity);
+            this.pixels = Arrays.copyOf(this.pixels, capacity);
+            this.palettes = Arrays.copyOf(this.palettes, capacity);
+            this.widths = Arrays.copyOf(this.widths, capacity);
+            this.heights = Arrays.copyOf(this.heights, capacity);
+            this.order = Arrays.copyOf(this.order, capacity);
+        }
+        
+        this.depth[count] = depth;
+        this.xLeft[count] = xLeft;
+        this.xRight[count] = xRight;
+        this.yTop[count] = yTop;
+        this.yBottom[count] = yBottom;
+        this.left[count] = left;
+        this.right[count] = right;
+        this.top[count] = top;
+        this.bottom[count] = bottom;
+        this.first[count] = first;
+        this.brightness[count] = brightness;
+        this.pixels[count] = pixels;
+        this.palettes[count] = palette;
+        this.widths[count] = width;
+        this.heights[count] = height;
+        this.order[count] = count;
+        
+        count++;
+    }
+    
+    /**
+     * Sort the sprites from the closest to the farthest.<br>
+     * Sprites at the same depth stay in the order they were added.
+     */
+    public void sort()
+    {
+        //insertion sort, there are not many sprites and it will not create any objects
+        for (int i = 1; i < count; i++)
+        {
+            final int index = order[i];
+            
+            int j = i - 1;
+            
+            while (j >= 0 && depth[order[j]] > depth[index])
+            {
+                order[j + 1] = order[j];
+                j--;
+            }
+            
+            order[j + 1] = index;
+        }
+    }
+    
+    /**
+     * Get the number of sprites
+     * @return The number of sprites added since the last reset
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+    
+    /**
+     * Get the index of the sprite that will be rendered
+     * @param i The position in the render order
+     * @return The index of the sprite
+     */
+    public int getIndex(final int i)
+    {
+        return this.order[i];
+    }
+    
+    public double getDepth(final int index)
+    {
+        return this.depth[index];
+    }
+    
+    public double getXLeft(final int index)
+    {
+        return this.xLeft[index];
+    }
+    
+    public double getXRight(final int index)
+    {
+        return this.xRight[index];
+    }
+    
+    public double getYTop(final int index)
+    {
+        return this.yTop[index];
+    }
+    
+    public double getYBottom(final int index)
+    {
+        return this.yBottom[index];
+    }
+    
+    public int getLeft(final int index)
+    {
+        return this.left[index];
+    }
+    
+    public int getRight(final int index)
+    {
+        return this.right[index];
+    }
+    
+    public int getTop(final int index)
+    {
+        return this.top[index];
+    }
+    
+    public int getBottom(final int index)
+    {
+        return this.bottom[index];
+    }
+    
+    public int getFirst(final int index)
+    {
+        return this.first[index];
+    }
+    
+    public int getBrightness(final int index)
+    {
+        return this.brightness[index];
+    }
+    
+    public byte[] getPixels(final int index)
+    {
+        return this.pixels[index];
+    }
+    
+    public int[] getPalette(final int index)
+    {
+        return this.palettes[index];
+    }
+    
+    public int getWidth(final int index)
+    {
+        return this.widths[index];
+    }
+    
+    public int getHeight(final int index)
+    {
+        return this.heights[index];
+    }
+}
@@ -0,0 +1,152 @@
+package com.gamesbykevin.wolfenstein.display;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+/**
+ * Every animation frame of a sprite sheet decoded into pixel data.<br>
+ * The sheet is decoded once when the resources are loaded, so a level object only has to point at its current frame.<br>
+ * Each pixel is stored as an 8-bit index into a palette for the sheet, all objects using the sheet share the same frames.
+ */
+public final class SpriteFrames implements Disposable
+{
+    //the palette index of transparent pixels
+    public static final int TRANSPARENT = 0;
+    
+    //the most colors a sprite sheet can have
+    private static final int PALETTE_SIZE = 256;
+    
+    //the palette index for each pixel of each frame on the sprite sheet
+    private byte[][] frames;
+    
+    //the color of each palette index
+    private int[] palette;
+    
+    //the width/height of each frame
+    private final int dimension;
+    
+    //the number of frames in each row of the sprite sheet
+    private final int columns;
+    
+    /**
+     * Decode all frames of the sprite sheet
+     * @param image The sprite sheet containing the animation frames
+     * @param dimension The width/height of each animation frame
+     */
+    public SpriteFrames(final Image image, final int dimension) throws Exception
+    {
+        this.dimension = dimension;
+        this.columns = image.getWidth(null) / dimension;
+        
+        final int rows = image.getHeight(null) / dimension;
+        
+        //draw the sprite sheet once so we can grab the pixels of every frame
+        final BufferedImage bufferedImage = new BufferedImage(columns * dimension, rows * dimension, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = bufferedImage.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        
+        this.frames = new byte[columns * rows][];
+        
+        //the full size palette so any 8-bit index can be looked up
+        this.palette = new int[PALETTE_SIZE];
+        
+        //the palette index of each color found so far
+        final HashMap<Integer, Integer> indexes = new HashMap<>();
+        
+        //the number of colors in the palette, the first is reserved for transparent pixels
+        int colors = TRANSPARENT + 1;
+        
+        final int[] pixels = new int[dimension * dimension];
+        
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < columns; col++)
+            {
+                bufferedImage.getRGB(col * dimension, row * dimension, dimension, dimension, pixels, 0, dimension);
+                
+                final byte[] frame = new byte[pixels.length];
+                
+                for (int i = 0; i < pixels.length; i++)
+                {
+                    //these colors are not rendered
+                    if (pixels[i] == 0 || pixels[i] == 0xffff00ff)
+                    {
+                        frame[i] = TRANSPARENT;
+                        continue;
+                    }
+                    
+                    Integer index = indexes.get(pixels[i]);
+                    
+                    //add the new color to the palette
+                    if (index == null)
+                    {
+                        if (colors == PALETTE_SIZE)
+                            throw new Exception("The sprite sheet has more than " + (PALETTE_SIZE - 1) + " colors plus transparent");
+                        
+                        index = colors++;
+                        indexes.put(pixels[i], index);
+                        this.palette[index] = pixels[i];
+                    }
+                    
+                    frame[i] = (byte)index.intValue();
+                }
+                
+                this.frames[(row * columns) + col] = frame;
+            }
+        }
+        
+        bufferedImage.flush();
+    }
+    
+    @Override
+    public void dispose()
+    {
+        frames = null;
+        palette = null;
+    }
+    
+    /**
+     * Get the palette for the sprite sheet
+     * @return The color of each palette index, any 8-bit index can be looked up
+     */
+    public int[] getPalette()
+    {
+        return this.palette;
+    }
+    
+    /**
+     * Get the width/height of each frame
+     * @return The dimension of each animation frame
+     */
+    public int getDimension()
+    {
+        return this.dimension;
+    }
+    
+    /**
+     * Get the pixel data for the frame
+     * @param col The column of the frame on the sprite sheet
+     * @param row The row of the frame on the sprite sheet
+     * @return The palette index of each pixel in the frame
+     */
+    public byte[] getFrame(final int col, final int row)
+    {
+        return this.frames[(row * columns) + col];
+    }
+    
+    /**
+     * Get the pixel data for the frame at the location on the sprite sheet
+     * @param location The portion of the sprite sheet for the current animation frame
+     * @return The palette index of each pixel in the frame
+     */
+    public byte[] getFrame(final Rectangle location)
+    {
+        return getFrame(location.x / dimension, location.y / dimension);
+    }
+}
@@ -3,7 +3,6 @@ package com.gamesbykevin.wolfenstein.display;
 import com.gamesbykevin.framework.resources.Disposable;
 
 import java.awt.Image;
-import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,8 +12,26 @@ import java.util.List;
  */
 public final class Textures implements Disposable
 {
-    //contain an instance of each wall texture
-    private HashMap<Key, Texture> textures;
+    //all wall/floor/ceiling textures are 64 x 64
+    public static final int SIZE = 64;
+    
+    //the number of bits to shift when moving to the next row in a texture
+    public static final int SIZE_BITS = 6;
+    
+    //the number of pixels used by each texture in the atlas
+    public static final int STRIDE = SIZE * SIZE;
+    
+    //the number of mip levels for each texture, each level is half the size of the one before down to 1 x 1
+    public static final int MIP_LEVELS = SIZE_BITS + 1;
+    
+    //contain an instance of each wall texture, the index is the ordinal of the key
+    private Texture[] textures;
+    
+    //the pixels of every texture in one array, each texture is placed at key.ordinal() * STRIDE
+    private int[] atlas;
+    
+    //the atlas for each mip level, level 0 is the full size atlas
+    private int[][] mipmaps;
     
     public enum Key
     {
@@ -124,33 +141,177 @@ public final class Textures implements Disposable
         }
         
         //create new list for our textures
-        this.textures = new HashMap<>();
+        this.textures = new Texture[Key.values().length];
+        
+        //create the atlas large enough for every texture
+        this.atlas = new int[Key.values().length * STRIDE];
         
         //add each texture to list
         for (Key key : Key.values())
         {
-            this.textures.put(key, new Texture(image, key.getColumn(), key.getRow()));
+            this.textures[key.ordinal()] = new Texture(image, key.getColumn(), key.getRow());
+            
+            //copy the pixels into the atlas
+            System.arraycopy(this.textures[key.ordinal()].getPixels(), 0, this.atlas, getOffset(key), STRIDE);
+        }
+        
+        this.mipmaps = new int[MIP_LEVELS][];
+        this.mipmaps[0] = this.atlas;
+        
+        //each level is created from the level before it
+        for (int level = 1; level < MIP_LEVELS; level++)
+        {
+            this.mipmaps[level] = createMipLevel(this.mipmaps[level - 1], level);
+        }
+    }
+    
+    /**
+     * Create the atlas for a mip level by averaging each 2 x 2 block of pixels from the level before it
+     * @param previous The atlas for the level before
+     * @param level The mip level we are creating
+     * @return The atlas for the mip level
+     */
+    private static int[] createMipLevel(final int[] previous, final int level)
+    {
+        //the size of each texture in this level and the level before
+        final int size = SIZE >> level;
+        final int previousSize = size * 2;
+        
+        final int[] pixels = new int[Key.values().length * size * size];
+        
+        for (int i = 0; i < Key.values().length; i++)
+        {
+            final int offset = i * size * size;
+            final int previousOffset = i * previousSize * previousSize;
+            
+            for (int y = 0; y < size; y++)
+            {
+                for (int x = 0; x < size; x++)
+                {
+                    final int index = previousOffset + (x * 2) + (y * 2 * previousSize);
+                    
+                    pixels[offset + x + (y * size)] = average(previous[index], previous[index + 1], previous[index + previousSize], previous[index + previousSize + 1]);
+                }
+            }
         }
+        
+        return pixels;
+    }
+    
+    /**
+     * Average each channel of the 4 colors
+     * @return The average color
+     */
+    private static int average(final int color1, final int color2, final int color3, final int color4)
+    {
+        int result = 0;
+        
+        for (int shift = 0; shift < 32; shift += 8)
+        {
+            final int total = ((color1 >>> shift) & 0xff) + ((color2 >>> shift) & 0xff) + ((color3 >>> shift) & 0xff) + ((color4 >>> shift) & 0xff);
+            
+            result |= ((total + 2) / 4) << shift;
+        }
+        
+        return result;
     }
     
     @Override
     public void dispose()
     {
-        for (Texture texture : textures.values())
+        for (int i = 0; i < textures.length; i++)
         {
-            if (texture != null)
+            if (textures[i] != null)
             {
-                texture.dispose();
-                texture = null;
+                textures[i].dispose();
+                textures[i] = null;
             }
         }
         
-        textures.clear();
         textures = null;
+        atlas = null;
+        mipmaps = null;
     }
     
     public Texture getTexture(final Key key)
     {
-        return this.textures.get(key);
+        //there is no texture
+        if (key == null)
+            return null;
+        
+        return this.textures[key.ordinal()];
+    }
+    
+    /**
+     * Get the pixels of every texture.<br>
+     * Each texture is SIZE x SIZE and starts at getOffset(key)
+     * @return The pixel array containing all textures
+     */
+    public int[] getAtlas()
+    {
+        return this.atlas;
+    }
+    
+    /**
+     * Get the pixels of every texture at the mip level.<br>
+     * Each texture is (SIZE >> level) x (SIZE >> level) and starts at getOffset(key, level)
+     * @param level The mip level, 0 is full size
+     * @return The pixel array containing all textures at the mip level
+     */
+    public int[] getAtlas(final int level)
+    {
+        return this.mipmaps[level];
+    }
+    
+    /**
+     * Get the location of the first pixel for the texture in the atlas
+     * @param key The texture we want
+     * @return The index in the atlas where the texture starts
+     */
+    public static int getOffset(final Key key)
+    {
+        return key.ordinal() * STRIDE;
+    }
+    
+    /**
+     * Get the location of the first pixel for the texture in the atlas for the mip level
+     * @param key The texture we want
+     * @param level The mip level, 0 is full size
+     * @return The index in the atlas for the mip level where the texture starts
+     */
+    public static int getOffset(final Key key, final int level)
+    {
+        return key.ordinal() * (STRIDE >> (level * 2));
+    }
+    
+    /**
+     * Get the mip level where each texel will cover about 1 pixel
+     * @param texels The number of full size texels each pixel covers
+     * @return The mip level, 0 is full size
+     */
+    public static int getMipLevel(final double texels)
+    {
+        int level = 0;
+        
+        //each level halves the number of texels covered
+        for (double covered = texels; covered >= 2 && level < MIP_LEVELS - 1; covered /= 2)
+        {
+            level++;
+        }
+        
+        return level;
+    }
+    
+    /**
+     * Get the pixel from the atlas.<br>
+     * The coordinates will wrap if outside of the texture.
+     * @param offset The start of the texture in the atlas, see getOffset(key)
+     * @param x x-coordinate in the texture
+     * @param y y-coordinate in the texture
+     * @return The color of the pixel
+     */
+    public int getPixel(final int offset, final int x, final int y)
+    {
+        return this.atlas[offset + (x & (SIZE - 1)) + ((y & (SIZE - 1)) << SIZE_BITS)];
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.gamesbykevin.wolfenstein.enemies;
 import com.gamesbykevin.framework.resources.Disposable;
 
 import com.gamesbykevin.wolfenstein.display.Render3D;
+import com.gamesbykevin.wolfenstein.display.SpriteFrames;
 import com.gamesbykevin.wolfenstein.engine.Engine;
 import com.gamesbykevin.wolfenstein.level.Level;
 import com.gamesbykevin.wolfenstein.resources.GameImages;
@@ -53,11 +54,11 @@ public final class Enemies implements Disposable
      * @param type The type of enemy
      * @param x x-coordinate
      * @param z z-coordinate
-     * @param resources Object used to get enemy sprite sheet
+     * @param frames The decoded animation frames of the enemy sprite sheet
      * @param random Object used to make random decisions
      * @throws Exception Exception will be thrown if type is not an enemy
      */
-    public void add(final GameImages.Keys type, final double x, final double z, final Resources resources, final Random random) throws Exception
+    public void add(final GameImages.Keys type, final double x, final double z, final SpriteFrames frames, final Random random) throws Exception
     {
         Enemy enemy = null;
         
@@ -113,8 +114,8 @@ public final class Enemies implements Disposable
             enemy.setX(x);
             enemy.setZ(z);
 
-            //store the sprite sheet
-            enemy.setImage(resources.getGameImage(type));
+            //store the decoded frames of the sprite sheet
+            enemy.setFrames(frames);
             
             //create our timer for the attack delay, with a random delay
             enemy.createTimer(ATTACK_DELAY_MIN + random.nextInt(ATTACK_DELAY_MIN * 2));
@@ -550,6 +551,10 @@ public final class Enemies implements Disposable
         if (enemy.getDistance(heroX, heroZ) < 1)
             return true;
         
+        //if the hero is in a room that can't be seen there is no need to check
+        if (!level.isVisible(startX, startZ, heroX, heroZ))
+            return false;
+        
         //calculate slope
         double slope = (heroZ - startZ) / (heroX - startX);
         
@@ -172,6 +172,18 @@ public final class Engine implements KeyListener, MouseMotionListener, MouseList
         }
     }
     
+    /**
+     * Prepare the 3d view for the next frame, this can be called any number of times between updates
+     * @param alpha How far we are from the last update to the next, ranging from 0.0 to 1.0
+     * @throws Exception 
+     */
+    public void interpolate(final double alpha) throws Exception
+    {
+        //only render while the game is being played, the same as when the game is updated
+        if (menu != null && menu.hasFinished() && menu.hasFocus() && manager != null)
+            manager.interpolate(alpha);
+    }
+    
     /**
      * Flag the engine to reset the game
      */
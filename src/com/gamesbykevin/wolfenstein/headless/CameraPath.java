@@ -0,0 +1,94 @@
+package com.gamesbykevin.wolfenstein.headless;
+
+import com.gamesbykevin.wolfenstein.hero.Input;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A scripted path the camera will follow when rendering without a display.<br>
+ * The camera moves in a straight line between each point and turns at the same rate.
+ */
+public final class CameraPath
+{
+    //the points the camera will move through in order
+    private final List<Point> points;
+    
+    //the angle the hero faces at the start of each level
+    private static final double START_ROTATION = Math.toRadians(45);
+    
+    /**
+     * The location and angle of the camera
+     */
+    private static final class Point
+    {
+        private final double column, row, rotation;
+        
+        private Point(final double column, final double row, final double rotation)
+        {
+            this.column = column;
+            this.row = row;
+            this.rotation = rotation;
+        }
+    }
+    
+    public CameraPath()
+    {
+        this.points = new ArrayList<>();
+    }
+    
+    /**
+     * Create the default path, the camera turns around and walks across the room where the hero starts
+     * @return The path around the starting room
+     */
+    public static CameraPath createDefault()
+    {
+        CameraPath path = new CameraPath();
+        path.add(2.5, 2.5, START_ROTATION);
+        path.add(2.5, 2.5, START_ROTATION + Math.PI);
+        path.add(8.5, 8.5, START_ROTATION + (Math.PI * 2));
+        path.add(8.5, 2.5, START_ROTATION + (Math.PI * 3));
+        
+        return path;
+    }
+    
+    /**
+     * Add the next point on the path
+     * @param column The column in the level
+     * @param row The row in the level
+     * @param rotation The angle the camera faces (radians)
+     */
+    public void add(final double column, final double row, final double rotation)
+    {
+        points.add(new Point(column, row, rotation));
+    }
+    
+    /**
+     * Place the camera along the path
+     * @param input The player input that the 3d view is rendered from
+     * @param frame The current frame
+     * @param frames The total number of frames, the last frame will be at the last point
+     * @throws Exception Exception will be thrown if there are no points on the path
+     */
+    public void place(final Input input, final int frame, final int frames) throws Exception
+    {
+        if (points.isEmpty())
+            throw new Exception("The camera path does not have any points");
+        
+        //how far along the path are we
+        final double position = (frames > 1) ? ((double)frame / (frames - 1)) * (points.size() - 1) : 0;
+        
+        //the points we are between
+        final int index = Math.min((int)position, points.size() - 1);
+        final Point start = points.get(index);
+        final Point end = points.get(Math.min(index + 1, points.size() - 1));
+        
+        //how far we are from the start point to the end point
+        final double progress = position - index;
+        
+        input.place(
+            start.column + ((end.column - start.column) * progress), 
+            start.row + ((end.row - start.row) * progress), 
+            start.rotation + ((end.rotation - start.rotation) * progress));
+    }
+}
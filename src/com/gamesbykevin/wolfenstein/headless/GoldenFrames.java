@@ -0,0 +1,227 @@
+package com.gamesbykevin.wolfenstein.headless;
+
+import com.gamesbykevin.wolfenstein.level.Level;
+import com.gamesbykevin.wolfenstein.shared.Shared;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import javax.imageio.ImageIO;
+
+/**
+ * Render a fixed level along a fixed camera path and check each frame against stored (golden) checksums.<br>
+ * Recording writes the checksum and image of each frame, verifying renders the frames again and compares the checksums.<br>
+ * Each frame is rendered from 2 levels created from the same seed, if they are not the same the frames can't be checked so an exception is thrown.<br>
+ * When a frame does not match, the frame and an image of the changed pixels are written next to the golden image.
+ */
+public final class GoldenFrames
+{
+    //the level and camera path are always the same so the frames are always the same
+    private static final long SEED = 1;
+    private static final int MAZE_DIMENSIONS = Level.MINIMUM_MAZE_DIMENSION;
+    private static final int FRAMES = 30;
+    
+    //the file containing the checksum of each frame
+    private static final String CHECKSUM_FILE = "checksums.txt";
+    
+    //the color of the pixels that changed in the diff image
+    private static final int DIFF_COLOR = 0xff0000;
+    
+    //the directory containing the golden frames
+    private final File directory;
+    
+    /**
+     * Create the object that will record/verify the golden frames
+     * @param directory The directory containing the golden frames
+     * @throws Exception Exception will be thrown if the resolution is dynamic since the frames would depend on timing
+     */
+    public GoldenFrames(final File directory) throws Exception
+    {
+        if (Shared.DYNAMIC_RESOLUTION)
+            throw new Exception("The golden frames can't be checked when the resolution is dynamic");
+        
+        this.directory = directory;
+    }
+    
+    /**
+     * Render the frames and store them as the golden frames
+     * @throws Exception 
+     */
+    public void record() throws Exception
+    {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new Exception("Unable to create directory: " + directory);
+        
+        HeadlessRenderer renderer = createRenderer();
+        HeadlessRenderer repeat = createRenderer();
+        
+        final CameraPath path = CameraPath.createDefault();
+        
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(directory, CHECKSUM_FILE))))
+        {
+            for (int frame = 0; frame < FRAMES; frame++)
+            {
+                writer.println(render(renderer, repeat, path, frame));
+                
+                renderer.write(getFile("golden", frame));
+            }
+        }
+        
+        renderer.dispose();
+        repeat.dispose();
+    }
+    
+    /**
+     * Render the frames and compare them to the golden frames
+     * @return The number of frames that do not match
+     * @throws Exception Exception will be thrown if the golden frames have not been recorded
+     */
+    public int verify() throws Exception
+    {
+        final List<String> checksums = new ArrayList<>();
+        
+        try (BufferedReader reader = new BufferedReader(new FileReader(new File(directory, CHECKSUM_FILE))))
+        {
+            String line;
+            
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.trim().length() > 0)
+                    checksums.add(line.trim());
+            }
+        }
+        
+        if (checksums.size() != FRAMES)
+            throw new Exception("Expected " + FRAMES + " golden checksums, found " + checksums.size());
+        
+        HeadlessRenderer renderer = createRenderer();
+        HeadlessRenderer repeat = createRenderer();
+        
+        final CameraPath path = CameraPath.createDefault();
+        
+        int mismatches = 0;
+        
+        for (int frame = 0; frame < FRAMES; frame++)
+        {
+            final String checksum = render(renderer, repeat, path, frame);
+            
+            if (checksum.equals(checksums.get(frame)))
+                continue;
+            
+            mismatches++;
+            
+            System.out.println("Frame " + frame + " does not match, expected " + checksums.get(frame) + " found " + checksum);
+            
+            //write the frame we rendered
+            renderer.write(getFile("actual", frame));
+            
+            //write the pixels that changed if we have the golden image
+            final File golden = getFile("golden", frame);
+            
+            if (golden.exists())
+                ImageIO.write(createDiff(ImageIO.read(golden), renderer.getImage()), "png", getFile("diff", frame));
+        }
+        
+        renderer.dispose();
+        repeat.dispose();
+        
+        return mismatches;
+    }
+    
+    /**
+     * Render the frame with both renderers and make sure they are the same
+     * @param renderer The renderer whose frame is kept
+     * @param repeat The renderer with a level created from the same seed
+     * @param path The path the camera follows
+     * @param frame The current frame
+     * @return The checksum of the frame
+     * @throws Exception Exception will be thrown if the frames are not the same, the level or the renderer is not deterministic
+     */
+    private static String render(final HeadlessRenderer renderer, final HeadlessRenderer repeat, final CameraPath path, final int frame) throws Exception
+    {
+        final String checksum = Long.toHexString(getChecksum(renderer.render(path, frame, FRAMES)));
+        final String repeated = Long.toHexString(getChecksum(repeat.render(path, frame, FRAMES)));
+        
+        if (!checksum.equals(repeated))
+            throw new Exception("Frame " + frame + " is not the same when rendered twice (" + checksum + ", " + repeated + "), the level or the renderer is not deterministic");
+        
+        return checksum;
+    }
+    
+    private static HeadlessRenderer createRenderer() throws Exception
+    {
+        return new HeadlessRenderer(Shared.INITIAL_WIDTH, Shared.INITIAL_HEIGHT, SEED, MAZE_DIMENSIONS);
+    }
+    
+    private File getFile(final String name, final int frame)
+    {
+        return new File(directory, String.format("%s%04d.png", name, frame));
+    }
+    
+    /**
+     * Get the checksum of the frame
+     * @param pixels The pixels of the frame
+     * @return The checksum of the color of every pixel
+     */
+    public static long getChecksum(final int[] pixels)
+    {
+        final CRC32 crc = new CRC32();
+        
+        final byte[] bytes = new byte[pixels.length * 3];
+        
+        for (int i = 0, index = 0; i < pixels.length; i++)
+        {
+            bytes[index++] = (byte)(pixels[i] >> 16);
+            bytes[index++] = (byte)(pixels[i] >> 8);
+            bytes[index++] = (byte)pixels[i];
+        }
+        
+        crc.update(bytes);
+        
+        return crc.getValue();
+    }
+    
+    /**
+     * Create an image showing which pixels changed.<br>
+     * Pixels that are the same are a darker gray of the golden image, pixels that changed are red.
+     * @param golden The golden image
+     * @param actual The image we rendered
+     * @return The image of the changed pixels
+     * @throws Exception Exception will be thrown if the images are not the same size
+     */
+    public static BufferedImage createDiff(final BufferedImage golden, final BufferedImage actual) throws Exception
+    {
+        if (golden.getWidth() != actual.getWidth() || golden.getHeight() != actual.getHeight())
+            throw new Exception("The golden image is not the same size as the rendered image");
+        
+        final BufferedImage diff = new BufferedImage(golden.getWidth(), golden.getHeight(), BufferedImage.TYPE_INT_RGB);
+        
+        for (int y = 0; y < golden.getHeight(); y++)
+        {
+            for (int x = 0; x < golden.getWidth(); x++)
+            {
+                final int expected = golden.getRGB(x, y) & 0xffffff;
+                
+                if (expected != (actual.getRGB(x, y) & 0xffffff))
+                {
+                    diff.setRGB(x, y, DIFF_COLOR);
+                }
+                else
+                {
+                    //the average of the colors at a quarter of the brightness
+                    final int gray = (((expected >> 16) & 0xff) + ((expected >> 8) & 0xff) + (expected & 0xff)) / 12;
+                    
+                    diff.setRGB(x, y, (gray << 16) | (gray << 8) | gray);
+                }
+            }
+        }
+        
+        return diff;
+    }
+}
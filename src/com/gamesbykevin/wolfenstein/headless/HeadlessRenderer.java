@@ -0,0 +1,266 @@
+package com.gamesbykevin.wolfenstein.headless;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import com.gamesbykevin.wolfenstein.display.Screen3D;
+import com.gamesbykevin.wolfenstein.display.SpriteFrames;
+import com.gamesbykevin.wolfenstein.display.Textures;
+import com.gamesbykevin.wolfenstein.enemies.Enemies;
+import com.gamesbykevin.wolfenstein.hero.Hero;
+import com.gamesbykevin.wolfenstein.level.Level;
+import com.gamesbykevin.wolfenstein.level.objects.LevelObject;
+import com.gamesbykevin.wolfenstein.resources.GameImages;
+import com.gamesbykevin.wolfenstein.resources.Resources;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Render the 3d view without a display.<br>
+ * The objects the manager would normally hold (level, hero, enemies, textures and the 3d screen) are created here without the engine,
+ * so frames can be rendered and checked on a machine that has no screen.
+ */
+public final class HeadlessRenderer implements Disposable
+{
+    //the images from the xml file
+    private HashMap<GameImages.Keys, BufferedImage> images;
+    
+    //the decoded animation frames of each sprite sheet
+    private HashMap<GameImages.Keys, SpriteFrames> spriteFrames;
+    
+    //wall textures
+    private Textures textures;
+    
+    //the level that will be rendered
+    private Level level;
+    
+    //the camera will be the hero's location
+    private Hero hero;
+    
+    //the enemies in the level
+    private Enemies enemies;
+    
+    //the 3d screen we will render to
+    private Screen3D screen;
+    
+    /**
+     * Create the level and everything needed to render it
+     * @param width Width of the 3d view
+     * @param height Height of the 3d view
+     * @param seed The seed used to create the level, the level is created from a fixed layout instead of the maze so the same seed will create the same level
+     * @param mazeDimensions The number of rooms in each row/column of the level
+     * @throws Exception 
+     */
+    public HeadlessRenderer(final int width, final int height, final long seed, final int mazeDimensions) throws Exception
+    {
+        //load the images the same way the resources would
+        this.images = loadImages();
+        
+        //decode the sprite sheets
+        this.spriteFrames = new HashMap<>();
+        
+        for (GameImages.Keys key : GameImages.Keys.values())
+        {
+            if (Resources.isSpriteSheet(key))
+                this.spriteFrames.put(key, new SpriteFrames(images.get(key), LevelObject.DIMENSION));
+        }
+        
+        //create the textures for the walls
+        this.textures = new Textures(images.get(GameImages.Keys.WallTextures));
+        
+        //create a new hero, placed at the start of the level
+        this.hero = new Hero(images.get(GameImages.Keys.Guns), images.get(GameImages.Keys.PlayerHud), images.get(GameImages.Keys.Mugshots));
+        this.hero.reset(true);
+        
+        //create new enemies list
+        this.enemies = new Enemies();
+        
+        final Random random = new Random(seed);
+        
+        //create a new level
+        this.level = new Level(mazeDimensions, Level.DEFAULT_ROOM_DIMENSION, random, spriteFrames.get(GameImages.Keys.Obstacles), spriteFrames.get(GameImages.Keys.BonusItems));
+        
+        //generate the entire level now since there is no progress to display, the maze can't be given a seed so it is not used
+        level.createFixed(random);
+        
+        //create new canvas
+        this.screen = new Screen3D(width, height);
+    }
+    
+    /**
+     * Load every image listed in the xml file
+     * @return The image for each key
+     * @throws Exception Exception will be thrown if an image can't be found
+     */
+    private static HashMap<GameImages.Keys, BufferedImage> loadImages() throws Exception
+    {
+        final HashMap<GameImages.Keys, BufferedImage> images = new HashMap<>();
+        
+        final Document document;
+        
+        try (InputStream stream = getResource(Resources.XML_CONFIG_GAME_IMAGE).openStream())
+        {
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+        }
+        
+        final NodeList nodes = document.getElementsByTagName("image");
+        
+        for (int i = 0; i < nodes.getLength(); i++)
+        {
+            final Element element = (Element)nodes.item(i);
+            
+            images.put(GameImages.Keys.valueOf(element.getAttribute("id")), ImageIO.read(getResource(element.getTextContent().trim())));
+        }
+        
+        //make sure there is an image for every key
+        for (GameImages.Keys key : GameImages.Keys.values())
+        {
+            if (images.get(key) == null)
+                throw new Exception("Image not found in xml: " + key.toString());
+        }
+        
+        return images;
+    }
+    
+    private static URL getResource(final String location) throws Exception
+    {
+        final URL url = HeadlessRenderer.class.getClassLoader().getResource(location);
+        
+        if (url == null)
+            throw new Exception("Resource not found: " + location);
+        
+        return url;
+    }
+    
+    @Override
+    public void dispose()
+    {
+        if (screen != null)
+        {
+            screen.dispose();
+            screen = null;
+        }
+        
+        if (hero != null)
+        {
+            hero.dispose();
+            hero = null;
+        }
+        
+        if (level != null)
+        {
+            level.dispose();
+            level = null;
+        }
+        
+        if (enemies != null)
+        {
+            enemies.dispose();
+            enemies = null;
+        }
+        
+        if (textures != null)
+        {
+            textures.dispose();
+            textures = null;
+        }
+        
+        if (spriteFrames != null)
+        {
+            for (SpriteFrames frames : spriteFrames.values())
+            {
+                frames.dispose();
+            }
+            
+            spriteFrames.clear();
+            spriteFrames = null;
+        }
+        
+        if (images != null)
+        {
+            for (BufferedImage image : images.values())
+            {
+                image.flush();
+            }
+            
+            images.clear();
+            images = null;
+        }
+    }
+    
+    /**
+     * Render the 3d view from the location
+     * @param column The column in the level the camera is at
+     * @param row The row in the level the camera is at
+     * @param rotation The angle the camera faces (radians)
+     * @return The pixels of the frame, the array is reused for every frame
+     * @throws Exception 
+     */
+    public int[] render(final double column, final double row, final double rotation) throws Exception
+    {
+        hero.getInput().place(column, row, rotation);
+        
+        return render();
+    }
+    
+    /**
+     * Render the 3d view for the frame of the camera path
+     * @param path The path the camera follows
+     * @param frame The current frame
+     * @param frames The total number of frames
+     * @return The pixels of the frame, the array is reused for every frame
+     * @throws Exception 
+     */
+    public int[] render(final CameraPath path, final int frame, final int frames) throws Exception
+    {
+        path.place(hero.getInput(), frame, frames);
+        
+        return render();
+    }
+    
+    private int[] render() throws Exception
+    {
+        screen.renderPixelData(hero.getInput(), level, textures, enemies);
+        
+        return screen.getPixels();
+    }
+    
+    /**
+     * Write the last frame rendered to disk
+     * @param file The png file we want to write
+     * @throws Exception 
+     */
+    public void write(final File file) throws Exception
+    {
+        ImageIO.write(screen.getImage(), "png", file);
+    }
+    
+    public BufferedImage getImage()
+    {
+        return screen.getImage();
+    }
+    
+    public int getWidth()
+    {
+        return screen.getWidth();
+    }
+    
+    public int getHeight()
+    {
+        return screen.getHeight();
+    }
+    
+    public Level getLevel()
+    {
+        return this.level;
+    }
+}
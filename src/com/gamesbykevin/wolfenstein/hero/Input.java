@@ -765,6 +765,31 @@ public final class Input extends Sprite
         return this.row;
     }
     
+    /**
+     * Place the player without any keyboard input, used to move the camera on a scripted path
+     * @param column The column in the level where the player will be
+     * @param row The row in the level where the player will be
+     * @param rotation The angle the player will face (radians)
+     */
+    public void place(final double column, final double row, final double rotation)
+    {
+        setX(column * 16);
+        setZ(row * 16);
+        
+        //there is nothing to move back to if there is collision
+        setXS(getX());
+        setZS(getZ());
+        
+        //the player is not moving
+        setXA(0);
+        setZA(0);
+        
+        this.column = (int)column;
+        this.row    = (int)row;
+        
+        setRotation(rotation);
+    }
+    
     private void setXS(final double xs)
     {
         this.xs = xs;
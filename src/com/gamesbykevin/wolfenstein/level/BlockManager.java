@@ -2,6 +2,9 @@ package com.gamesbykevin.wolfenstein.level;
 
 import com.gamesbykevin.framework.resources.Disposable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public abstract class BlockManager implements Disposable
 {
     //all blocks in the level
@@ -10,6 +13,9 @@ public abstract class BlockManager implements Disposable
     //is a door closing in this room, used to play sound effect
     private boolean closing = false;
     
+    //every door in the level in the order they were numbered
+    private Door[] doors;
+    
     protected BlockManager(final int columnTotal, final int rowTotal)
     {
         //create an array of these blocks
@@ -35,6 +41,7 @@ public abstract class BlockManager implements Disposable
         }
         
         blocks = null;
+        doors = null;
     }
     
     /**
@@ -77,6 +84,37 @@ public abstract class BlockManager implements Disposable
         return blocks[row][column];
     }
     
+    /**
+     * Get every door in the level.<br>
+     * The doors are numbered the first time they are needed, so this should only be called once the level has been created.
+     * @return The doors, the index of each door matches its position
+     */
+    public Door[] getDoors()
+    {
+        if (doors == null)
+        {
+            final List<Door> tmp = new ArrayList<>();
+            
+            for (int row = 0; row < getRowCount(); row++)
+            {
+                for (int col = 0; col < getColumnCount(); col++)
+                {
+                    final Block block = get(col, row);
+                    
+                    if (block == null || !block.isDoor())
+                        continue;
+                    
+                    block.getDoor().setIndex(tmp.size());
+                    tmp.add(block.getDoor());
+                }
+            }
+            
+            doors = tmp.toArray(new Door[tmp.size()]);
+        }
+        
+        return doors;
+    }
+    
     protected Block[][] getBlocks()
     {
         return blocks;
@@ -39,6 +39,9 @@ public final class Door implements Disposable
     //the state of the door
     private State state;
     
+    //the number of this door in the level, so its status can be captured for rendering
+    private int index = -1;
+    
     protected Door()
     {
         //create new timer
@@ -216,6 +219,24 @@ public final class Door implements Disposable
         }
     }
     
+    /**
+     * Set the number of this door in the level
+     * @param index The index of the door
+     */
+    protected void setIndex(final int index)
+    {
+        this.index = index;
+    }
+    
+    /**
+     * Get the number of this door in the level
+     * @return The index of the door, -1 if the doors have not been numbered
+     */
+    public int getIndex()
+    {
+        return this.index;
+    }
+    
     private void setState(final State state)
     {
         this.state = state;
@@ -234,4 +255,26 @@ public final class Door implements Disposable
     {
         return this.timer.getProgress();
     }
+    
+    /**
+     * Get how far the door has slid open
+     * @return The amount open will range from 0.0 (closed) to 1.0 (open)
+     */
+    public float getOpenProgress()
+    {
+        switch (getState())
+        {
+            case OPEN:
+                return 1f;
+                
+            case CLOSING:
+                return 1f - getProgress();
+                
+            case OPENING:
+                return getProgress();
+                
+            default:
+                return 0f;
+        }
+    }
 }
\ No newline at end of file
@@ -8,19 +8,22 @@ import com.gamesbykevin.framework.resources.Progress;
 import com.gamesbykevin.framework.util.Timers;
 
 import com.gamesbykevin.wolfenstein.display.Render3D;
+import com.gamesbykevin.wolfenstein.display.SpriteFrames;
 import com.gamesbykevin.wolfenstein.display.Textures.*;
+import com.gamesbykevin.wolfenstein.enemies.Enemies;
 import com.gamesbykevin.wolfenstein.engine.Engine;
 import com.gamesbykevin.wolfenstein.level.objects.BonusItem;
 import com.gamesbykevin.wolfenstein.level.objects.LevelObjects;
+import com.gamesbykevin.wolfenstein.resources.GameImages;
 import com.gamesbykevin.wolfenstein.resources.Resources;
 import com.gamesbykevin.wolfenstein.resources.GameAudio;
 import com.gamesbykevin.wolfenstein.shared.Shared;
 
 import java.awt.Graphics;
-import java.awt.Image;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 public final class Level extends BlockManager implements Disposable
@@ -65,6 +68,12 @@ public final class Level extends BlockManager implements Disposable
     //locate the group of textures we will use for this level
     private LevelTextures levelKeys;
     
+    //every wall face in the level, created once the textures are assigned
+    private WallFaces faces;
+    
+    //the rooms that can be seen from each room
+    private RoomVisibility visibility;
+    
     /**
      * The different options for each border in each room
      * Open - no walls
@@ -81,7 +90,7 @@ public final class Level extends BlockManager implements Disposable
      */
     public enum Steps
     {
-        Step1, Step2, Step3, Step4, Step5, Step6, Step7, Step8, Step9, Step10, Step11, Step12
+        Step1, Step2, Step3, Step4, Step5, Step6, Step7, Step8, Step9, Step10, Step11, Step12, Step13
     }
     
     //keep track of current step
@@ -96,7 +105,7 @@ public final class Level extends BlockManager implements Disposable
      * @param roomDimensions The size of each room
      * @throws Exception 
      */
-    public Level(final int mazeDimensions, final int roomDimensions, final Random random, final Image obstacleSpriteSheet, final Image bonusItemSpriteSheet) throws Exception
+    public Level(final int mazeDimensions, final int roomDimensions, final Random random, final SpriteFrames obstacleFrames, final SpriteFrames bonusItemFrames) throws Exception
     {
         super((mazeDimensions * roomDimensions) + mazeDimensions + 1, (mazeDimensions * roomDimensions) + mazeDimensions + 1);
         
@@ -129,7 +138,7 @@ public final class Level extends BlockManager implements Disposable
         this.levelKeys = new LevelTextures(random);
         
         //create the object that will have bonus items/obstacles etc..
-        this.objects = new LevelObjects(obstacleSpriteSheet, bonusItemSpriteSheet);
+        this.objects = new LevelObjects(obstacleFrames, bonusItemFrames);
         
         //pick a random maze generation algorithm
         Labyrinth.Algorithm algorithm = Labyrinth.Algorithm.values()[random.nextInt(Labyrinth.Algorithm.values().length)];
@@ -170,6 +179,18 @@ public final class Level extends BlockManager implements Disposable
             secrets = null;
         }
         
+        if (faces != null)
+        {
+            faces.dispose();
+            faces = null;
+        }
+        
+        if (visibility != null)
+        {
+            visibility.dispose();
+            visibility = null;
+        }
+        
         if (progress != null)
         {
             progress.dispose();
@@ -404,7 +425,7 @@ public final class Level extends BlockManager implements Disposable
         }
     }
     
-    private void placeEnemies(final Engine engine) throws Exception
+    private void placeEnemies(final Random random, final Enemies enemies, final Map<GameImages.Keys, SpriteFrames> spriteFrames) throws Exception
     {
         for (int row = 0; row < maze.getRows(); row++)
         {
@@ -433,7 +454,7 @@ public final class Level extends BlockManager implements Disposable
                 boolean canAddBoss = beforeGoal.equals(col, row);
                 
                 //place enemies in the specified room
-                RoomHelper.placeEnemies(maze.getLocation(col, row), engine.getRandom(), engine.getManager().getEnemies(), this, engine.getResources(), canAddBoss);
+                RoomHelper.placeEnemies(maze.getLocation(col, row), random, enemies, this, spriteFrames, canAddBoss);
             }
         }
     }
@@ -560,6 +581,65 @@ public final class Level extends BlockManager implements Disposable
         }
     }
     
+    /**
+     * Locate every wall face in the level so the renderer doesn't have to
+     */
+    protected void createFaces()
+    {
+        if (faces != null)
+            faces.dispose();
+        
+        this.faces = new WallFaces(this);
+    }
+    
+    /**
+     * Determine which rooms can be seen from each room
+     */
+    protected void createVisibility()
+    {
+        if (visibility != null)
+            visibility.dispose();
+        
+        //rays only need to travel as far as anything is rendered
+        this.visibility = new RoomVisibility(this, getRoomDimensions(), Render3D.RENDER_RANGE * Math.sqrt(2));
+    }
+    
+    /**
+     * Get the rooms that can be seen from each room
+     * @return The potentially visible set of each room, null if the level has not been created yet
+     */
+    public RoomVisibility getVisibility()
+    {
+        return this.visibility;
+    }
+    
+    /**
+     * Is the location potentially visible from the other location.<br>
+     * Only the rooms are checked, so true does not mean there is a clear line of sight.
+     * @param fromX x-coordinate where we are looking from
+     * @param fromZ z-coordinate where we are looking from
+     * @param toX x-coordinate of what we want to see
+     * @param toZ z-coordinate of what we want to see
+     * @return true if the location could be seen, false if it is in a room that can't be seen
+     */
+    public boolean isVisible(final double fromX, final double fromZ, final double toX, final double toZ)
+    {
+        //if not created yet we have to assume it can be seen
+        if (visibility == null)
+            return true;
+        
+        return visibility.isVisible(fromX, fromZ, toX, toZ);
+    }
+    
+    /**
+     * Get the wall faces of the level
+     * @return The wall faces, null if the level has not been created yet
+     */
+    public WallFaces getFaces()
+    {
+        return this.faces;
+    }
+    
     /**
      * Get the block at the specified location
      * @param x x-location
@@ -592,6 +672,10 @@ public final class Level extends BlockManager implements Disposable
             block.setNorth(Key.GoalSwitchOn);
         if (block.getSouth() == Key.GoalSwitchOff)
             block.setSouth(Key.GoalSwitchOn);
+        
+        //the wall faces keep their own copy of the textures
+        if (faces != null)
+            faces.refreshKeys(block);
                 
         this.complete = true;
     }
@@ -831,8 +915,18 @@ public final class Level extends BlockManager implements Disposable
      */
     public void update(final Engine engine) throws Exception
     {
-        final Random random = engine.getRandom();
-        
+        update(engine.getRandom(), engine.getManager().getEnemies(), engine.getResources().getSpriteFrames());
+    }
+    
+    /**
+     * Here we setup the level, this does not need the engine so a level can be created without a display
+     * @param random Object used to make random decisions
+     * @param enemies The enemies that will be placed in the level
+     * @param spriteFrames The decoded animation frames of each sprite sheet
+     * @throws Exception 
+     */
+    public void update(final Random random, final Enemies enemies, final Map<GameImages.Keys, SpriteFrames> spriteFrames) throws Exception
+    {
         switch (getStep())
         {
             case Step1:
@@ -905,7 +999,7 @@ public final class Level extends BlockManager implements Disposable
                 break;
                 
             case Step9:
-                placeEnemies(engine);
+                placeEnemies(random, enemies, spriteFrames);
                 
                 //progress to next step
                 nextStep();
@@ -923,6 +1017,17 @@ public final class Level extends BlockManager implements Disposable
                 //now set the wall textures for the rooms
                 assignTextures(random);
                 
+                //now that the level is complete locate the wall faces
+                createFaces();
+                
+                //progress to next step
+                nextStep();
+                break;
+                
+            case Step12:
+                //determine which rooms can be seen from each room
+                createVisibility();
+                
                 //progress to next step
                 nextStep();
                 break;
@@ -932,6 +1037,79 @@ public final class Level extends BlockManager implements Disposable
         }
     }
     
+    /**
+     * Create the entire level from a fixed layout instead of the maze, so the level is the same every time for the same random object.<br>
+     * The maze can't be given a seed, so this is used when the level has to be the same every time (golden frames).<br>
+     * Every room has a door or an opening on each inside border, the obstacles, bonus items and textures are placed the same way as the maze level.<br>
+     * No enemies are placed since their animations depend on the time that has passed.
+     * @param random Object used to make random decisions
+     * @throws Exception Exception will be thrown if the level has already started being created
+     */
+    public void createFixed(final Random random) throws Exception
+    {
+        if (stepIndex != 0)
+            throw new Exception("The level has already started being created");
+        
+        //the number of rooms in each row/column, each room shares a border with the room next to it
+        final int rooms = (getColumnCount() - 1) / (getRoomDimensions() + 1);
+        
+        //get list of valid bonus types
+        List<BonusItem.Type> types = RoomHelper.getBonusTypesList();
+        
+        for (int row = 0; row < rooms; row++)
+        {
+            for (int col = 0; col < rooms; col++)
+            {
+                final Cell location = new Cell(col, row);
+                
+                //the outside of the level is closed
+                if (col == 0)
+                    RoomHelper.changeBorder(this, Location.Wall.West, State.Closed, location, false, false, false);
+                if (row == 0)
+                    RoomHelper.changeBorder(this, Location.Wall.North, State.Closed, location, false, false, false);
+                
+                //the inside borders will have a door or be open
+                RoomHelper.changeBorder(this, Location.Wall.East, (col == rooms - 1) ? State.Closed : (random.nextBoolean()) ? State.Door : State.Open, location, false, false, false);
+                RoomHelper.changeBorder(this, Location.Wall.South, (row == rooms - 1) ? State.Closed : (random.nextBoolean()) ? State.Door : State.Open, location, false, false, false);
+                
+                //don't add items to the start
+                if (col == 0 && row == 0)
+                    continue;
+                
+                //choose randomly if bonus items are to be added to this room
+                if (random.nextBoolean())
+                    RoomHelper.addBonusItems(this, location, objects, random, types, false);
+                
+                //place obstacles
+                RoomHelper.placeObstacles(this, objects, location, random);
+            }
+        }
+        
+        //now set the total number of treasures so we can track completion
+        this.treasureCount = getCurrentTreasureCount();
+        
+        //fill any null block with an empty block
+        fill();
+        
+        //create the map so the artificial intelligence knows how to navigate
+        createPlayerMap();
+        
+        //now set the wall textures for the rooms
+        assignTextures(random);
+        
+        //now that the level is complete locate the wall faces
+        createFaces();
+        
+        //determine which rooms can be seen from each room
+        createVisibility();
+        
+        //skip the steps that would create the level from the maze
+        while (!isLevelCreated())
+        {
+            nextStep();
+        }
+    }
+    
     private Steps getStep()
     {
         return Steps.values()[stepIndex];
@@ -6,17 +6,19 @@ import com.gamesbykevin.framework.labyrinth.Labyrinth;
 import com.gamesbykevin.framework.labyrinth.Location;
 import com.gamesbykevin.framework.labyrinth.Location.Wall;
 
+import com.gamesbykevin.wolfenstein.display.SpriteFrames;
 import com.gamesbykevin.wolfenstein.display.Textures;
 import com.gamesbykevin.wolfenstein.enemies.Enemies;
 import com.gamesbykevin.wolfenstein.level.objects.*;
 import com.gamesbykevin.wolfenstein.level.objects.BonusItem.Type.*;
-import com.gamesbykevin.wolfenstein.resources.Resources;
+import com.gamesbykevin.wolfenstein.resources.GameImages;
 import static com.gamesbykevin.wolfenstein.level.objects.BonusItem.Type.Key1;
 import static com.gamesbykevin.wolfenstein.level.objects.BonusItem.Type.Key2;
 import static com.gamesbykevin.wolfenstein.level.Level.State;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 /**
@@ -408,7 +410,7 @@ public class RoomHelper
         }
     }
     
-    protected static void placeEnemies(final Cell location, final Random random, final Enemies enemies, final Level level, final Resources resources, final boolean canAddBoss)
+    protected static void placeEnemies(final Cell location, final Random random, final Enemies enemies, final Level level, final Map<GameImages.Keys, SpriteFrames> spriteFrames, final boolean canAddBoss)
     {
         //how many enemies can be added to this room at random
         final int enemyLimit;
@@ -461,8 +463,11 @@ public class RoomHelper
                 //get random location
                 Cell cell = options.get(index);
 
-                //add random enemy for now
-                enemies.add(Enemies.getRandomEnemy(random, canAddBoss), cell.getCol(), cell.getRow(), resources, random);
+                //pick a random enemy for now
+                final GameImages.Keys type = Enemies.getRandomEnemy(random, canAddBoss);
+                
+                //add the enemy with the decoded frames of its sprite sheet
+                enemies.add(type, cell.getCol(), cell.getRow(), spriteFrames.get(type), random);
 
                 //remove as possible option
                 options.remove(index);
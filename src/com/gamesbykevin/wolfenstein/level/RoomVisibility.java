@@ -0,0 +1,315 @@
+package com.gamesbykevin.wolfenstein.level;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import java.util.BitSet;
+
+/**
+ * The potentially visible set (PVS) of rooms for each room in the level.<br>
+ * Rays are cast from every corner of the open blocks in a room, doors are treated as open since they can open at any time.<br>
+ * There are enough rays that they are never more than half a block apart at the end of their range, so no opening a block wide is missed.<br>
+ * Any room a ray passes through before hitting a solid block can be seen from the room.
+ */
+public final class RoomVisibility implements Disposable
+{
+    //the most space between 2 rays at the end of their range (in blocks)
+    private static final double RAY_SPACING = 0.5;
+    
+    //the rooms that can be seen from each room
+    private BitSet[] visible;
+    
+    //the size of each room
+    private final int roomDimensions;
+    
+    //the number of rooms in the maze
+    private final int columns, rows;
+    
+    /**
+     * Determine which rooms can be seen from each room
+     * @param level The level that has been created
+     * @param roomDimensions The size of each room
+     * @param range How far a ray can travel (in blocks)
+     */
+    protected RoomVisibility(final Level level, final int roomDimensions, final double range)
+    {
+        this.roomDimensions = roomDimensions;
+        
+        //each room shares a border with the room next to it
+        this.columns = (level.getColumnCount() - 1) / (roomDimensions + 1);
+        this.rows = (level.getRowCount() - 1) / (roomDimensions + 1);
+        
+        this.visible = new BitSet[columns * rows];
+        
+        //the number of directions a ray is cast from each corner, so the rays are close enough at the end of their range
+        final int directions = (int)Math.ceil((Math.PI * 2 * range) / RAY_SPACING);
+        
+        //the direction of each ray
+        final double[] directionX = new double[directions];
+        final double[] directionZ = new double[directions];
+        
+        for (int i = 0; i < directions; i++)
+        {
+            final double angle = (Math.PI * 2 * i) / directions;
+            
+            directionX[i] = Math.cos(angle);
+            directionZ[i] = Math.sin(angle);
+        }
+        
+        for (int roomRow = 0; roomRow < rows; roomRow++)
+        {
+            for (int roomCol = 0; roomCol < columns; roomCol++)
+            {
+                final BitSet rooms = new BitSet(columns * rows);
+                
+                //a room can always see itself
+                rooms.set(getIndex(roomCol, roomRow));
+                
+                //cast rays from the corners of every block in the room including the borders where a door may be
+                for (int row = roomRow * roomDimensions; row <= ((roomRow + 1) * roomDimensions) + 1; row++)
+                {
+                    for (int col = roomCol * roomDimensions; col <= ((roomCol + 1) * roomDimensions) + 1; col++)
+                    {
+                        //the player can only be at the corner of an open block in the room
+                        if (!hasOpenBlock(level, roomCol, roomRow, col, row))
+                            continue;
+                        
+                        for (int i = 0; i < directions; i++)
+                        {
+                            cast(level, rooms, col, row, directionX[i], directionZ[i], range);
+                        }
+                    }
+                }
+                
+                this.visible[getIndex(roomCol, roomRow)] = rooms;
+            }
+        }
+    }
+    
+    @Override
+    public void dispose()
+    {
+        visible = null;
+    }
+    
+    /**
+     * Can we see through this block
+     * @param block The block we want to check
+     * @return true if the block is solid and not a door, false otherwise
+     */
+    private static boolean isBlocked(final Block block)
+    {
+        return (block.isSolid() && !block.isDoor());
+    }
+    
+    /**
+     * Is any of the 4 blocks touching the corner open and in the room
+     * @param level The level containing the blocks
+     * @param roomCol The column of the room
+     * @param roomRow The row of the room
+     * @param x The x-coordinate of the corner
+     * @param z The z-coordinate of the corner
+     * @return true if the player could be standing at the corner while in the room, false otherwise
+     */
+    private boolean hasOpenBlock(final Level level, final int roomCol, final int roomRow, final int x, final int z)
+    {
+        for (int row = z - 1; row <= z; row++)
+        {
+            //the blocks in the room including the borders
+            if (row < roomRow * roomDimensions || row > (roomRow + 1) * roomDimensions)
+                continue;
+            
+            for (int col = x - 1; col <= x; col++)
+            {
+                if (col < roomCol * roomDimensions || col > (roomCol + 1) * roomDimensions)
+                    continue;
+                
+                if (!isBlocked(level.get(col, row)))
+                    return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Step a ray from the corner of a block through the blocks and mark every room it passes through
+     * @param level The level containing the blocks
+     * @param rooms The rooms that can be seen
+     * @param x The x-coordinate of the corner
+     * @param z The z-coordinate of the corner
+     * @param directionX The x direction of the ray
+     * @param directionZ The z direction of the ray
+     * @param range How far the ray can travel
+     */
+    private void cast(final Level level, final BitSet rooms, final int x, final int z, final double directionX, final double directionZ, final double range)
+    {
+        //which way will the ray step through the blocks
+        final int stepX = (directionX < 0) ? -1 : 1;
+        final int stepZ = (directionZ < 0) ? -1 : 1;
+        
+        //the block touching the corner that the ray starts in
+        int blockX = (stepX < 0) ? x - 1 : x;
+        int blockZ = (stepZ < 0) ? z - 1 : z;
+        
+        //the distance for crossing an entire block
+        final double deltaX = (directionX == 0) ? Double.MAX_VALUE : Math.abs(1 / directionX);
+        final double deltaZ = (directionZ == 0) ? Double.MAX_VALUE : Math.abs(1 / directionZ);
+        
+        //the ray starts on the corner, so the next block border is an entire block away
+        double sideX = deltaX;
+        double sideZ = deltaZ;
+        
+        //we can't see anything if the ray starts in a solid block
+        if (isBlocked(level.get(blockX, blockZ)))
+            return;
+        
+        mark(rooms, blockX, blockZ);
+        
+        while (true)
+        {
+            //step to the next block
+            if (sideX < sideZ)
+            {
+                if (sideX > range)
+                    return;
+                
+                sideX += deltaX;
+                blockX += stepX;
+            }
+            else
+            {
+                if (sideZ > range)
+                    return;
+                
+                sideZ += deltaZ;
+                blockZ += stepZ;
+            }
+            
+            //we can't see past this block
+            if (isBlocked(level.get(blockX, blockZ)))
+                return;
+            
+            mark(rooms, blockX, blockZ);
+        }
+    }
+    
+    /**
+     * Mark the room(s) the block is in as seen
+     * @param rooms The rooms that can be seen
+     * @param blockX The column of the block
+     * @param blockZ The row of the block
+     */
+    private void mark(final BitSet rooms, final int blockX, final int blockZ)
+    {
+        final int col = getRoomColumn(blockX);
+        final int row = getRoomRow(blockZ);
+        
+        rooms.set(getIndex(col, row));
+        
+        //blocks on the border are in 2 rooms
+        rooms.set(getIndex(getNeighbor(blockX, col, columns), row));
+        rooms.set(getIndex(col, getNeighbor(blockZ, row, rows)));
+        rooms.set(getIndex(getNeighbor(blockX, col, columns), getNeighbor(blockZ, row, rows)));
+    }
+    
+    private int getIndex(final int col, final int row)
+    {
+        return (row * columns) + col;
+    }
+    
+    /**
+     * Get the column of the room containing the x-coordinate
+     * @param x x-coordinate
+     * @return The column of the room
+     */
+    private int getRoomColumn(final double x)
+    {
+        return clamp((int)x / roomDimensions, columns);
+    }
+    
+    /**
+     * Get the row of the room containing the z-coordinate
+     * @param z z-coordinate
+     * @return The row of the room
+     */
+    private int getRoomRow(final double z)
+    {
+        return clamp((int)z / roomDimensions, rows);
+    }
+    
+    /**
+     * Get the other room if the block is on the border between 2 rooms
+     * @param block The column/row of the block
+     * @param room The column/row of the room containing the block
+     * @param total The number of room columns/rows
+     * @return The column/row of the room on the other side of the border, or the same room if not on the border
+     */
+    private int getNeighbor(final int block, final int room, final int total)
+    {
+        //not on the border
+        if (block % roomDimensions != 0)
+            return room;
+        
+        return clamp((block / roomDimensions) - 1, total);
+    }
+    
+    private static int clamp(final int room, final int total)
+    {
+        if (room < 0)
+            return 0;
+        if (room >= total)
+            return total - 1;
+        
+        return room;
+    }
+    
+    /**
+     * Is the room at the location potentially visible from the other location
+     * @param fromX x-coordinate where we are looking from
+     * @param fromZ z-coordinate where we are looking from
+     * @param toX x-coordinate of what we want to see
+     * @param toZ z-coordinate of what we want to see
+     * @return true if there is a room containing the "from" location that could see a room containing the "to" location, false otherwise
+     */
+    public boolean isVisible(final double fromX, final double fromZ, final double toX, final double toZ)
+    {
+        final int fromCol = getRoomColumn(fromX);
+        final int fromRow = getRoomRow(fromZ);
+        final int fromCol2 = getNeighbor((int)fromX, fromCol, columns);
+        final int fromRow2 = getNeighbor((int)fromZ, fromRow, rows);
+        
+        final int toCol = getRoomColumn(toX);
+        final int toRow = getRoomRow(toZ);
+        final int toCol2 = getNeighbor((int)toX, toCol, columns);
+        final int toRow2 = getNeighbor((int)toZ, toRow, rows);
+        
+        return (isVisible(fromCol, fromRow, toCol, toRow, toCol2, toRow2) ||
+                isVisible(fromCol2, fromRow, toCol, toRow, toCol2, toRow2) ||
+                isVisible(fromCol, fromRow2, toCol, toRow, toCol2, toRow2) ||
+                isVisible(fromCol2, fromRow2, toCol, toRow, toCol2, toRow2));
+    }
+    
+    /**
+     * Can the room see any of the rooms containing the location
+     */
+    private boolean isVisible(final int fromCol, final int fromRow, final int toCol, final int toRow, final int toCol2, final int toRow2)
+    {
+        final BitSet rooms = visible[getIndex(fromCol, fromRow)];
+        
+        return (rooms.get(getIndex(toCol, toRow)) ||
+                rooms.get(getIndex(toCol2, toRow)) ||
+                rooms.get(getIndex(toCol, toRow2)) ||
+                rooms.get(getIndex(toCol2, toRow2)));
+    }
+    
+    /**
+     * Get the number of rooms that can be seen from the room at the location
+     * @param x x-coordinate
+     * @param z z-coordinate
+     * @return The number of rooms in the potentially visible set
+     */
+    public int getVisibleCount(final double x, final double z)
+    {
+        return visible[getIndex(getRoomColumn(x), getRoomRow(z))].cardinality();
+    }
+}
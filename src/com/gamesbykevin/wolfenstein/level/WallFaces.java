@@ -0,0 +1,503 @@
+package com.gamesbykevin.wolfenstein.level;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import com.gamesbykevin.wolfenstein.display.RenderSnapshot;
+import com.gamesbykevin.wolfenstein.display.Textures.Key;
+
+import java.util.Arrays;
+
+/**
+ * Every wall face that can be seen in the level.<br>
+ * The faces are found once when the level is created, so the renderer does not have to check each block and its neighbors every frame.<br>
+ * The faces are stored by column then row, the same order the blocks would be checked.
+ */
+public final class WallFaces implements Disposable
+{
+    //when rendering a door adjust depth for doors
+    public static final double DOOR_DEPTH = 0.5;
+    
+    //when rendering a door adjust depth for secret just a little so the door is not drawn over the walls
+    public static final double DOOR_SECRET_DEPTH = 0.01;
+    
+    //the side of the door face, the door slides along the face
+    private static final byte SIDE_NONE  = 0;
+    private static final byte SIDE_EAST  = 1;
+    private static final byte SIDE_SOUTH = 2;
+    private static final byte SIDE_WEST  = 3;
+    private static final byte SIDE_NORTH = 4;
+    
+    //the location of each face
+    private double[] xLeft, xRight, zLeft, zRight;
+    
+    //the texture of each face
+    private Key[] keys;
+    
+    //the block and side each texture was read from, so the texture can be read again if it changes
+    private Block[] keyBlocks;
+    private byte[] keySides;
+    
+    //the block each face was found from
+    private int[] columns, rows;
+    
+    //the door block for each face, null if the face is not a door
+    private Block[] doors;
+    
+    //the side of the door for each face
+    private byte[] sides;
+    
+    //the door status the last time the face was refreshed
+    private float[] progress;
+    private boolean[] closed;
+    
+    //the index of each door face
+    private int[] doorFaces;
+    private int doorCount = 0;
+    
+    //the index of the first face for each column, the last entry is the total count
+    private int[] columnStart;
+    
+    //the number of faces
+    private int count = 0;
+    
+    //the number of times a door face has been moved, so we know when the doors have changed
+    private int changes = 0;
+    
+    //the number of times the textures have been read again, this is changed on the game thread while the doors can be moved on the render thread
+    private int keyChanges = 0;
+    
+    /**
+     * Find all faces in the level
+     * @param level The level that has been created
+     */
+    protected WallFaces(final Level level)
+    {
+        //start with an estimated size that will grow as needed
+        final int capacity = level.getColumnCount() * 4;
+        
+        this.xLeft = new double[capacity];
+        this.xRight = new double[capacity];
+        this.zLeft = new double[capacity];
+        this.zRight = new double[capacity];
+        this.keys = new Key[capacity];
+        this.keyBlocks = new Block[capacity];
+        this.keySides = new byte[capacity];
+        this.columns = new int[capacity];
+        this.rows = new int[capacity];
+        this.doors = new Block[capacity];
+        this.sides = new byte[capacity];
+        this.progress = new float[capacity];
+        this.closed = new boolean[capacity];
+        this.doorFaces = new int[capacity];
+        this.columnStart = new int[level.getColumnCount() + 1];
+        
+        for (int col = 0; col < level.getColumnCount(); col++)
+        {
+            this.columnStart[col] = count;
+            
+            for (int row = 0; row < level.getRowCount(); row++)
+            {
+                addFaces(level, col, row);
+            }
+        }
+        
+        this.columnStart[level.getColumnCount()] = count;
+    }
+    
+    @Override
+    public void dispose()
+    {
+        xLeft = null;
+        xRight = null;
+        zLeft = null;
+        zRight = null;
+        keys = null;
+        keyBlocks = null;
+        keySides = null;
+        columns = null;
+        rows = null;
+        doors = null;
+        sides = null;
+        progress = null;
+        closed = null;
+        doorFaces = null;
+        columnStart = null;
+    }
+    
+    /**
+     * Add the faces between the block and its east and south neighbors
+     * @param level The level containing the blocks
+     * @param col Column of the block
+     * @param row Row of the block
+     */
+    private void addFaces(final Level level, final int col, final int row)
+    {
+        final Block block = level.get(col, row);
+        final Block east = level.get(col + 1, row);
+        final Block south = level.get(col, row + 1);
+        
+        if (block.isSolid())
+        {
+            //draw west wall
+            if (!east.isSolid())
+            {
+                if (block.isDoor())
+                {
+                    addDoor(col, row, block, SIDE_EAST);
+                }
+                else
+                {
+                    add(col, row, block, SIDE_EAST, col + 1, col + 1, row, row + 1);
+                }
+            }
+            else
+            {
+                //draw side wall of door
+                if (block.isDoor())
+                    add(col, row, east, SIDE_WEST, col + 1, col + 1, row + 1, row);
+                
+                //draw side wall of door
+                if (east.isDoor())
+                    add(col, row, block, SIDE_EAST, col + 1, col + 1, row, row + 1);
+            }
+            
+            //draw north wall
+            if (!south.isSolid())
+            {
+                if (block.isDoor())
+                {
+                    addDoor(col, row, block, SIDE_SOUTH);
+                }
+                else
+                {
+                    add(col, row, block, SIDE_SOUTH, col + 1, col, row + 1, row + 1);
+                }
+            }
+            else
+            {
+                //draw side wall of door
+                if (block.isDoor())
+                    add(col, row, south, SIDE_NORTH, col, col + 1, row + 1, row + 1);
+                
+                //draw side wall of door
+                if (south.isDoor())
+                    add(col, row, block, SIDE_SOUTH, col + 1, col, row + 1, row + 1);
+            }
+        }
+        else
+        {
+            //draw east wall
+            if (east.isSolid())
+            {
+                if (east.isDoor())
+                {
+                    addDoor(col, row, east, SIDE_WEST);
+                }
+                else
+                {
+                    add(col, row, east, SIDE_WEST, col + 1, col + 1, row + 1, row);
+                }
+            }
+            
+            //draw south wall
+            if (south.isSolid())
+            {
+                if (south.isDoor())
+                {
+                    addDoor(col, row, south, SIDE_NORTH);
+                }
+                else
+                {
+                    add(col, row, south, SIDE_NORTH, col, col + 1, row + 1, row + 1);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Add a wall face that will not move
+     * @param col Column of the block the face was found from
+     * @param row Row of the block the face was found from
+     * @param block The block containing the texture of the face
+     * @param side The side of the block the texture is on, if there is no texture the face will not be added
+     * @param xLeft x left location
+     * @param xRight x right location
+     * @param zLeft depth of left side
+     * @param zRight depth of right side
+     */
+    private void add(final int col, final int row, final Block block, final byte side, final double xLeft, final double xRight, final double zLeft, final double zRight)
+    {
+        //nothing will be rendered without a texture
+        if (getKey(block, side) == null)
+            return;
+        
+        set(next(col, row, block, side), xLeft, xRight, zLeft, zRight);
+    }
+    
+    /**
+     * Add a door face, the location will depend on the status of the door
+     * @param col Column of the block the face was found from
+     * @param row Row of the block the face was found from
+     * @param door The block containing the door
+     * @param side The side of the door, if there is no texture on this side the face will not be added
+     */
+    private void addDoor(final int col, final int row, final Block door, final byte side)
+    {
+        //nothing will be rendered without a texture
+        if (getKey(door, side) == null)
+            return;
+        
+        final int index = next(col, row, door, side);
+        
+        this.doors[index] = door;
+        this.sides[index] = side;
+        
+        //make room for another door
+        if (doorCount == doorFaces.length)
+            doorFaces = Arrays.copyOf(doorFaces, doorFaces.length * 2);
+        
+        this.doorFaces[doorCount++] = index;
+        
+        //set the location
+        refresh(index, door.getDoor().getOpenProgress(), door.getDoor().isClosed());
+    }
+    
+    /**
+     * Get the index for the next face, the arrays will grow if needed
+     * @param col Column of the block the face was found from
+     * @param row Row of the block the face was found from
+     * @param block The block containing the texture of the face
+     * @param side The side of the block the texture is on
+     * @return The index of the new face
+     */
+    private int next(final int col, final int row, final Block block, final byte side)
+    {
+        //make room for another face
+        if (count == keys.length)
+        {
+            final int capacity = keys.length * 2;
+            
+            xLeft = Arrays.copyOf(xLeft, capacity);
+            xRight = Arrays.copyOf(xRight, capacity);
+            zLeft = Arrays.copyOf(zLeft, capacity);
+            zRight = Arrays.copyOf(zRight, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            keyBlocks = Arrays.copyOf(keyBlocks, capacity);
+            keySides = Arrays.copyOf(keySides, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+            doors = Arrays.copyOf(doors, capacity);
+            sides = Arrays.copyOf(sides, capacity);
+            progress = Arrays.copyOf(progress, capacity);
+            closed = Arrays.copyOf(closed, capacity);
+        }
+        
+        this.keys[count] = getKey(block, side);
+        this.keyBlocks[count] = block;
+        this.keySides[count] = side;
+        this.columns[count] = col;
+        this.rows[count] = row;
+        this.sides[count] = SIDE_NONE;
+        
+        return count++;
+    }
+    
+    /**
+     * Get the texture on the side of the block
+     * @param block The block containing the texture
+     * @param side The side of the block
+     * @return The texture, null if there is no texture on this side
+     */
+    private static Key getKey(final Block block, final byte side)
+    {
+        switch (side)
+        {
+            case SIDE_EAST:
+                return block.getEast();
+            
+            case SIDE_SOUTH:
+                return block.getSouth();
+            
+            case SIDE_WEST:
+                return block.getWest();
+            
+            case SIDE_NORTH:
+                return block.getNorth();
+            
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Read the textures of the block again for every face that uses them, for when a texture changes after the level is created.<br>
+     * The faces that had no texture when the level was created are not added.
+     * @param block The block where a texture has changed
+     */
+    public void refreshKeys(final Block block)
+    {
+        for (int index = 0; index < count; index++)
+        {
+            if (keyBlocks[index] == block)
+                keys[index] = getKey(block, keySides[index]);
+        }
+        
+        this.keyChanges++;
+    }
+    
+    /**
+     * Set the location of the door face depending on the status of the door
+     * @param index The index of the door face
+     * @param open How far the door has slid open
+     * @param isClosed Is the door closed
+     */
+    private void refresh(final int index, final float open, final boolean isClosed)
+    {
+        final Door door = doors[index].getDoor();
+        
+        final double col = columns[index];
+        final double row = rows[index];
+        
+        //store the status so we know when it changes
+        this.progress[index] = open;
+        this.closed[index] = isClosed;
+        this.changes++;
+        
+        //secret doors are only moved back once they start to open
+        final double depth;
+        
+        switch (sides[index])
+        {
+            case SIDE_EAST:
+                depth = (!door.isSecret()) ? DOOR_DEPTH : (isClosed) ? 0 : DOOR_SECRET_DEPTH;
+                set(index, col + 1 - depth, col + 1 - depth, row + open, row + 1 + open);
+                break;
+            
+            case SIDE_SOUTH:
+                depth = (!door.isSecret()) ? DOOR_DEPTH : (isClosed) ? 0 : DOOR_SECRET_DEPTH;
+                set(index, col + 1 + open, col + open, row + 1 - depth, row + 1 - depth);
+                break;
+            
+            case SIDE_WEST:
+                depth = (!door.isSecret()) ? DOOR_DEPTH : DOOR_SECRET_DEPTH;
+                set(index, col + 1 + depth, col + 1 + depth, row + 1 + open, row + open);
+                break;
+            
+            case SIDE_NORTH:
+                depth = (!door.isSecret()) ? DOOR_DEPTH : DOOR_SECRET_DEPTH;
+                set(index, col + open, col + 1 + open, row + 1 + depth, row + 1 + depth);
+                break;
+        }
+    }
+    
+    private void set(final int index, final double xLeft, final double xRight, final double zLeft, final double zRight)
+    {
+        this.xLeft[index] = xLeft;
+        this.xRight[index] = xRight;
+        this.zLeft[index] = zLeft;
+        this.zRight[index] = zRight;
+    }
+    
+    /**
+     * Refresh the location of any door face where the door has changed
+     * @param snapshot The status of the doors captured for rendering, if null the status is checked from each door
+     */
+    public void update(final RenderSnapshot snapshot)
+    {
+        for (int i = 0; i < doorCount; i++)
+        {
+            final int index = doorFaces[i];
+            
+            final Door door = doors[index].getDoor();
+            
+            final float open = (snapshot != null) ? snapshot.getOpenProgress(door) : door.getOpenProgress();
+            final boolean isClosed = (snapshot != null) ? snapshot.isClosed(door) : door.isClosed();
+            
+            //only refresh if the door has changed
+            if (open != progress[index] || isClosed != closed[index])
+                refresh(index, open, isClosed);
+        }
+    }
+    
+    /**
+     * Get the number of times a door face has been moved or the textures have been read again
+     * @return A count that will be different once any door or texture has changed
+     */
+    public int getChanges()
+    {
+        return this.changes + this.keyChanges;
+    }
+    
+    /**
+     * Get the number of faces
+     * @return The total number of faces in the level
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+    
+    /**
+     * Get the number of block columns
+     * @return The number of columns in the level
+     */
+    public int getColumnCount()
+    {
+        return this.columnStart.length - 1;
+    }
+    
+    /**
+     * Get the index of the first face in the column
+     * @param column The column of the blocks
+     * @return The index of the first face found from a block in this column
+     */
+    public int getStart(final int column)
+    {
+        return this.columnStart[column];
+    }
+    
+    /**
+     * Get the index after the last face in the column
+     * @param column The column of the blocks
+     * @return The index after the last face found from a block in this column
+     */
+    public int getEnd(final int column)
+    {
+        return this.columnStart[column + 1];
+    }
+    
+    /**
+     * Get the row of the block the face was found from
+     * @param index The index of the face
+     * @return The row of the block
+     */
+    public int getRow(final int index)
+    {
+        return this.rows[index];
+    }
+    
+    public double getXLeft(final int index)
+    {
+        return this.xLeft[index];
+    }
+    
+    public double getXRight(final int index)
+    {
+        return this.xRight[index];
+    }
+    
+    public double getZLeft(final int index)
+    {
+        return this.zLeft[index];
+    }
+    
+    public double getZRight(final int index)
+    {
+        return this.zRight[index];
+    }
+    
+    public Key getKey(final int index)
+    {
+        return this.keys[index];
+    }
+}
@@ -4,7 +4,7 @@ import com.gamesbykevin.framework.base.Animation;
 import com.gamesbykevin.framework.base.Cell;
 import com.gamesbykevin.framework.base.Sprite;
 import com.gamesbykevin.framework.resources.Disposable;
-import com.gamesbykevin.wolfenstein.display.Texture;
+import com.gamesbykevin.wolfenstein.display.SpriteFrames;
 import com.gamesbykevin.wolfenstein.shared.Shared;
 
 import java.util.ArrayList;
@@ -17,10 +17,13 @@ import java.util.List;
 public abstract class LevelObject extends Sprite implements Disposable
 {
     //each animation frame on the original image is the same width/height for each level object
-    private static final int DIMENSION = 64;
+    public static final int DIMENSION = 64;
     
-    //texture that will contain the rendering portion
-    private Texture texture;
+    //the decoded animation frames of the sprite sheet
+    private SpriteFrames frames;
+    
+    //the palette index of each pixel of the current animation frame
+    private byte[] pixels;
     
     //list of locations in case there are multiple bonus items of the same type
     private List<Cell> locations;
@@ -33,9 +36,6 @@ public abstract class LevelObject extends Sprite implements Disposable
         //create our sprite sheet
         super.createSpriteSheet();
         
-        //create new texture
-        this.texture = new Texture();
-        
         //create new list
         this.locations = new ArrayList<>();
     }
@@ -45,11 +45,9 @@ public abstract class LevelObject extends Sprite implements Disposable
     {
         super.dispose();
         
-        if (texture != null)
-        {
-            texture.dispose();
-            texture = null;
-        }
+        //the frames are shared with other objects so they are not disposed here
+        frames = null;
+        pixels = null;
         
         if (locations != null)
         {
@@ -166,13 +164,35 @@ public abstract class LevelObject extends Sprite implements Disposable
         return super.getSpriteSheet().getCurrent();
     }
     
+    /**
+     * Set the decoded animation frames of the sprite sheet
+     * @param frames The frames decoded when the resources were loaded
+     */
+    public void setFrames(final SpriteFrames frames)
+    {
+        this.frames = frames;
+        
+        //point at the current frame so there is something to render before the first update
+        if (getKey() != null)
+            this.pixels = frames.getFrame(getSpriteSheet().getLocation());
+    }
+    
     /**
      * Get pixel data
-     * @return pixel array data representing the current image
+     * @return palette index of each pixel representing the current image
+     */
+    public byte[] getPixels()
+    {
+        return this.pixels;
+    }
+    
+    /**
+     * Get the palette of the sprite sheet
+     * @return The color of each palette index in the pixel data
      */
-    public int[] getPixels()
+    public int[] getPalette()
     {
-        return this.texture.getPixels();
+        return this.frames.getPalette();
     }
     
     /**
@@ -185,7 +205,7 @@ public abstract class LevelObject extends Sprite implements Disposable
         //update animation
         super.getSpriteSheet().update(time);
 
-        //update current image
-        texture.update(getImage(), getSpriteSheet().getLocation());
+        //point at the current frame
+        pixels = frames.getFrame(getSpriteSheet().getLocation());
     }
 }
\ No newline at end of file
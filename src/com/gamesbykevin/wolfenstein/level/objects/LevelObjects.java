@@ -3,8 +3,8 @@ package com.gamesbykevin.wolfenstein.level.objects;
 import com.gamesbykevin.framework.base.Cell;
 import com.gamesbykevin.framework.resources.Disposable;
 import com.gamesbykevin.wolfenstein.display.Render3D;
+import com.gamesbykevin.wolfenstein.display.SpriteFrames;
 
-import java.awt.Image;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,14 +20,14 @@ public final class LevelObjects implements Disposable
     //list of bonus items
     private List<BonusItem> bonusItems;
     
-    //image that contains all obstacles, bonus items
-    private Image obstacleSpriteSheet, bonusItemSpriteSheet;
+    //decoded frames of the sprite sheets that contain all obstacles, bonus items
+    private SpriteFrames obstacleFrames, bonusItemFrames;
     
-    public LevelObjects(final Image obstacleSpriteSheet, final Image bonusItemSpriteSheet)
+    public LevelObjects(final SpriteFrames obstacleFrames, final SpriteFrames bonusItemFrames)
     {
-        //the images containing all the items
-        this.obstacleSpriteSheet = obstacleSpriteSheet;
-        this.bonusItemSpriteSheet = bonusItemSpriteSheet;
+        //the frames of all the items
+        this.obstacleFrames = obstacleFrames;
+        this.bonusItemFrames = bonusItemFrames;
         
         //create new lists
         this.obstacles = new ArrayList<>();
@@ -85,7 +85,7 @@ public final class LevelObjects implements Disposable
         {
             Obstacle obstacle = new Obstacle(type);
             obstacle.addLocation(x, z);
-            obstacle.setImage(this.obstacleSpriteSheet);
+            obstacle.setFrames(this.obstacleFrames);
 
             //update object once so pixel data is written
             obstacle.update(0);
@@ -124,7 +124,7 @@ public final class LevelObjects implements Disposable
         {
             BonusItem bonusItem = new BonusItem(type);
             bonusItem.addLocation(x, z);
-            bonusItem.setImage(this.bonusItemSpriteSheet);
+            bonusItem.setFrames(this.bonusItemFrames);
 
             //update object once so pixel data is written
             bonusItem.update(0);
@@ -0,0 +1,103 @@
+package com.gamesbykevin.wolfenstein.main;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits until the next update or frame is due without using the cpu for most of the wait.<br>
+ * The thread is parked until shortly before the deadline, parking can wake up late so the rest of the wait is spent spinning.<br>
+ * How late each wait finished is measured, so we can tell how closely the deadlines are kept.
+ */
+public final class FramePacer
+{
+    //stop parking and spin when the deadline is this close (nano-seconds)
+    private final long spin;
+    
+    //the number of waits since the jitter was reset
+    private int waits = 0;
+    
+    //the total and largest amount of time a wait finished after its deadline (nano-seconds)
+    private long total = 0;
+    private long maximum = 0;
+    
+    /**
+     * Create the pacer
+     * @param spin How close to the deadline we stop parking and spin (nano-seconds)
+     */
+    public FramePacer(final long spin)
+    {
+        this.spin = spin;
+    }
+    
+    /**
+     * Wait until the deadline, if it has already passed nothing happens
+     * @param deadline The time to wait until, from System.nanoTime() (nano-seconds)
+     */
+    public void waitUntil(final long deadline)
+    {
+        long remaining = deadline - System.nanoTime();
+        
+        //we are already late, there is nothing to measure
+        if (remaining <= 0)
+            return;
+        
+        while (remaining > 0)
+        {
+            if (remaining > spin)
+            {
+                //don't use the cpu for most of the wait, we may wake up early so check again
+                LockSupport.parkNanos(remaining - spin);
+            }
+            else
+            {
+                //let any other thread run while we spin
+                Thread.yield();
+            }
+            
+            remaining = deadline - System.nanoTime();
+        }
+        
+        //how late we are
+        final long jitter = -remaining;
+        
+        waits++;
+        total += jitter;
+        maximum = Math.max(maximum, jitter);
+    }
+    
+    /**
+     * Get the number of waits that were measured
+     * @return The number of waits since the jitter was reset
+     */
+    public int getWaits()
+    {
+        return this.waits;
+    }
+    
+    /**
+     * Get how late a wait finished on average
+     * @return The average time after the deadline (nano-seconds)
+     */
+    public long getAverageJitter()
+    {
+        return (waits > 0) ? total / waits : 0;
+    }
+    
+    /**
+     * Get how late a wait finished at most
+     * @return The largest time after the deadline (nano-seconds)
+     */
+    public long getMaximumJitter()
+    {
+        return this.maximum;
+    }
+    
+    /**
+     * Start measuring the jitter again
+     */
+    public void resetJitter()
+    {
+        waits = 0;
+        total = 0;
+        maximum = 0;
+    }
+}
@@ -0,0 +1,111 @@
+package com.gamesbykevin.wolfenstein.main;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ring of 3 frames so the game can draw a frame while another frame is presented.<br>
+ * One frame is being drawn to, one is the latest finished frame and one is being presented.<br>
+ * Neither side ever waits on the other, finishing a frame and taking the latest frame are a single atomic swap.
+ */
+public final class FrameRing implements Disposable
+{
+    //the number of frames in the ring
+    private static final int SIZE = 3;
+    
+    //the bits containing the index of the finished frame
+    private static final int INDEX_MASK = 0xff;
+    
+    //marks the finished frame as not presented yet
+    private static final int FRESH = 1 << 8;
+    
+    //the image and graphics object of each frame
+    private BufferedImage[] images;
+    private Graphics[] graphics;
+    
+    //the frame being drawn to, only used by the thread drawing the frames
+    private int back = 0;
+    
+    //the frame being presented, only used by the thread presenting the frames
+    private int front = 1;
+    
+    //the latest finished frame, and if it has not been presented yet
+    private final AtomicInteger ready = new AtomicInteger(2);
+    
+    /**
+     * Create the frames
+     * @param width Width of each frame
+     * @param height Height of each frame
+     */
+    public FrameRing(final int width, final int height)
+    {
+        this.images = new BufferedImage[SIZE];
+        this.graphics = new Graphics[SIZE];
+        
+        for (int i = 0; i < SIZE; i++)
+        {
+            this.images[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            this.graphics[i] = this.images[i].createGraphics();
+        }
+    }
+    
+    @Override
+    public void dispose()
+    {
+        if (graphics != null)
+        {
+            for (int i = 0; i < graphics.length; i++)
+            {
+                graphics[i].dispose();
+            }
+            
+            graphics = null;
+        }
+        
+        if (images != null)
+        {
+            for (int i = 0; i < images.length; i++)
+            {
+                images[i].flush();
+            }
+            
+            images = null;
+        }
+    }
+    
+    /**
+     * Get the graphics object of the frame being drawn to
+     * @return Graphics object to draw the next frame
+     */
+    public Graphics getGraphics()
+    {
+        return graphics[back];
+    }
+    
+    /**
+     * The frame being drawn to is finished, it will be the next frame presented.<br>
+     * Drawing continues on the older finished frame if it was never presented, so this never waits.
+     */
+    public void publish()
+    {
+        back = ready.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+    
+    /**
+     * Take the latest finished frame to present it
+     * @return The image of the latest finished frame, null if there is no new frame since the last one taken
+     */
+    public BufferedImage acquire()
+    {
+        //only this thread clears the flag, so the frame will still be fresh when we swap
+        if ((ready.get() & FRESH) == 0)
+            return null;
+        
+        front = ready.getAndSet(front) & INDEX_MASK;
+        
+        return images[front];
+    }
+}
@@ -1,20 +1,22 @@
 package com.gamesbykevin.wolfenstein.main;
 
 import java.awt.*;
+import java.io.File;
 import javax.swing.*;
 
 import com.gamesbykevin.framework.resources.Disposable;
 
 import com.gamesbykevin.wolfenstein.engine.Engine;
+import com.gamesbykevin.wolfenstein.metrics.Metrics;
 import com.gamesbykevin.wolfenstein.shared.Shared;
 
 public final class Main extends Thread implements Disposable
 {
-    //image where all game/menu elements will be written to
-    private Image bufferedImage;
+    //the frames all game/menu elements will be written to
+    private FrameRing frames;
     
-    //Graphics object used to draw buffered image
-    private Graphics bufferedImageGraphics;
+    //the thread that will draw the finished frames to the window
+    private Presenter presenter;
     
     //our dimensions for the original screen window
     private Rectangle originalSizeWindow;
@@ -22,8 +24,8 @@ public final class Main extends Thread implements Disposable
     //our dimensions for the full screen window
     private Rectangle fullSizeWindow;
     
-    //our dimensions for keeping track of the size of the current window
-    private Rectangle currentWindow;
+    //our dimensions for keeping track of the size of the current window, read by the presenter
+    private volatile Rectangle currentWindow;
     
     //our main game engine
     private Engine engine;
@@ -34,18 +36,27 @@ public final class Main extends Thread implements Disposable
     //need double for accuracy
     private double nanoSecondsPerUpdate;
     
+    //the least amount of time between frames in nanoseconds
+    private long nanoSecondsPerFrame;
+    
     //reference to our applet
     private JApplet applet;
     
     //reference to our panel
     private JPanel panel;
     
-    //cache this graphics object so we aren't constantly creating it
-    private Graphics graphics;
+    //cache this graphics object so we aren't constantly creating it, read by the presenter
+    private volatile Graphics graphics;
     
     //count how many updates
     private int updates = 0;
     
+    //count how many frames were rendered
+    private int renders = 0;
+    
+    //waits for the next update or frame without using the cpu
+    private final FramePacer pacer = new FramePacer(Shared.PACER_SPIN * 1000L);
+    
     //time used to track updates per second
     private long time = System.nanoTime();
     
@@ -76,6 +87,21 @@ public final class Main extends Thread implements Disposable
 
         //duration of each update in nanoseconds
         this.nanoSecondsPerUpdate = NANO_SECONDS_PER_SECOND / ups;
+        
+        //the frame rate does not have to match the update rate
+        int fps = (Shared.MAX_FPS > 0) ? Shared.MAX_FPS : getRefreshRate();
+        
+        //without a display or a known refresh rate we still need a cap, otherwise the game thread never waits
+        if (fps <= 0)
+            fps = Shared.DEFAULT_FPS;
+        
+        this.nanoSecondsPerFrame = NANO_SECONDS_PER_SECOND / fps;
+        
+        //the frames that will be drawn and presented
+        this.frames = new FrameRing(originalSizeWindow.width, originalSizeWindow.height);
+        
+        //watch the frame times over JMX, and write them to a file when the game shuts down if one is set
+        Metrics.register((Shared.METRICS_FILE != null) ? new File(Shared.METRICS_FILE) : null);
     }
     
     /**
@@ -84,16 +110,17 @@ public final class Main extends Thread implements Disposable
     @Override
     public void dispose()
     {
-        if (bufferedImage != null)
+        //stop presenting before the frames are removed
+        if (presenter != null)
         {
-            bufferedImage.flush();
-            bufferedImage = null;
+            presenter.dispose();
+            presenter = null;
         }
         
-        if (bufferedImageGraphics != null)
+        if (frames != null)
         {
-            bufferedImageGraphics.dispose();
-            bufferedImageGraphics = null;
+            frames.dispose();
+            frames = null;
         }
         
         if (graphics != null)
@@ -159,9 +186,19 @@ public final class Main extends Thread implements Disposable
         //set the current time
         time = previous;
         
-        //variable to keep fps constant
+        //the finished frames will be drawn to the window on their own thread
+        presenter = new Presenter(this, frames);
+        presenter.start();
+        
+        //variable to keep ups constant
         double delta = 0;
         
+        //the time the last frame was rendered
+        long rendered = previous;
+        
+        //nothing is rendered until the game has been updated
+        boolean updated = false;
+        
         while (active)
         {
             try
@@ -177,17 +214,16 @@ public final class Main extends Thread implements Disposable
                 
                 while(delta >= 1)
                 {
+                    final long start = System.nanoTime();
+                    
                     //update game
                     engine.update(this);
-
-                    //render image
-                    renderImage();
                     
-                    //draw image
-                    drawScreen();
+                    Metrics.ENGINE_UPDATE.record(System.nanoTime() - start);
                     
                     //add to our counter
                     updates++;
+                    updated = true;
                     
                     //deduct from delta
                     delta--;
@@ -196,7 +232,30 @@ public final class Main extends Thread implements Disposable
                     checkCount();
                 }
                 
-                Thread.sleep(0, 10);
+                //render as often as the frame rate allows, no matter how many updates there were
+                if (updated && now - rendered >= nanoSecondsPerFrame)
+                {
+                    //place the camera between the last 2 updates depending on how close we are to the next update
+                    engine.interpolate(delta);
+                    
+                    //render image, it will be drawn to the window by the presenter
+                    renderImage();
+                    
+                    //add to our counter
+                    renders++;
+                    
+                    rendered = now;
+                }
+                
+                //the time the next update is due
+                long deadline = now + (long)((1 - delta) * nanoSecondsPerUpdate);
+                
+                //the next frame may be due first
+                if (updated)
+                    deadline = Math.min(deadline, rendered + nanoSecondsPerFrame);
+                
+                //wait until then
+                pacer.waitUntil(deadline);
             }
             catch(Exception e)
             {
@@ -221,9 +280,29 @@ public final class Main extends Thread implements Disposable
 
                 //display updates per second
                 System.out.println("UPS = " + updates);
+                
+                //display frames per second
+                System.out.println("FPS = " + renders);
+                
+                //display how late the game thread woke up for an update or frame (micro-seconds)
+                System.out.println("Jitter avg = " + (pacer.getAverageJitter() / 1000) + ", max = " + (pacer.getMaximumJitter() / 1000) + ", waits = " + pacer.getWaits());
+                pacer.resetJitter();
+                
+                //display how many objects were outside the view in the last frame
+                if (engine != null && engine.getManager() != null && engine.getManager().screen != null)
+                    System.out.println("Culled = " + engine.getManager().screen.render3d.getCulled());
+                
+                //display how many sprites were hidden behind walls in the last frame
+                if (engine != null && engine.getManager() != null && engine.getManager().screen != null)
+                    System.out.println("Occluded = " + engine.getManager().screen.render3d.getOccluded());
+                
+                //display if the floor, ceiling and walls were reused in the last frame
+                if (engine != null && engine.getManager() != null && engine.getManager().screen != null)
+                    System.out.println("Static reused = " + engine.getManager().screen.render3d.isStaticReused());
 
-                //reset update counter
+                //reset update/frame counter
                 updates = 0;
+                renders = 0;
             }
         }
     }
@@ -249,21 +328,6 @@ public final class Main extends Thread implements Disposable
         return null;
     }
     
-    /**
-     * Create buffered Image
-     */
-    private void createBufferedImage()
-    {
-        if (applet != null)
-        {
-            bufferedImage = applet.createImage(originalSizeWindow.width, originalSizeWindow.height);
-        }
-        else
-        {
-            bufferedImage = panel.createImage(originalSizeWindow.width, originalSizeWindow.height);
-        }
-    }
-    
     /**
      * Get the size of the original window
      * @return Rectangle
@@ -294,6 +358,20 @@ public final class Main extends Thread implements Disposable
         createGraphicsObject();
     }
     
+    /**
+     * Get how often the display refreshes
+     * @return The refresh rate in hertz, 0 if there is no display or it is unknown
+     */
+    private static int getRefreshRate()
+    {
+        if (GraphicsEnvironment.isHeadless())
+            return 0;
+        
+        final int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        
+        return (refreshRate != DisplayMode.REFRESH_RATE_UNKNOWN) ? refreshRate : 0;
+    }
+    
     /**
      * Get the number of nanoseconds per each update.
      * @return long The nanosecond duration per each update which is based on updates per second.
@@ -305,28 +383,23 @@ public final class Main extends Thread implements Disposable
     
     /**
      * Writes all game/menu elements in our 
-     * engine to our single bufferedImage.
+     * engine to the next frame, then lets the presenter know it is finished.
      * 
      * @throws Exception 
      */
     private void renderImage() throws Exception
     {
-        if (bufferedImage != null)
-        {
-            if (bufferedImageGraphics == null)
-                bufferedImageGraphics = bufferedImage.getGraphics();
-            
-            //background by itself will be a black rectangle
-            bufferedImageGraphics.setColor(Color.BLACK);
-            bufferedImageGraphics.fillRect(0, 0, Shared.ORIGINAL_WIDTH, Shared.ORIGINAL_HEIGHT);
+        final Graphics frameGraphics = frames.getGraphics();
+        
+        //background by itself will be a black rectangle
+        frameGraphics.setColor(Color.BLACK);
+        frameGraphics.fillRect(0, 0, Shared.ORIGINAL_WIDTH, Shared.ORIGINAL_HEIGHT);
 
-            engine.render(bufferedImageGraphics);
-        }
-        else
-        {
-            //create the image that will be displayed to the user
-            createBufferedImage();
-        }
+        engine.render(frameGraphics);
+        
+        //the frame is finished, this never waits for the frame being presented
+        frames.publish();
+        presenter.signal();
     }
     
     /**
@@ -359,14 +432,11 @@ public final class Main extends Thread implements Disposable
     }
     
     /**
-     * Draw Image onto screen
+     * Draw Image onto screen, this is called by the presenter
+     * @param image The latest finished frame
      */
-    private void drawScreen()
+    protected void drawScreen(final Image image)
     {
-        //if no image has been rendered yet return
-        if (bufferedImage == null)
-            return;
-        
         //cache graphics object to save resources
         if (graphics == null)
             createGraphicsObject();
@@ -375,22 +445,30 @@ public final class Main extends Thread implements Disposable
         if (currentWindow == null)
             setFullScreen();
         
+        //the window and graphics object can be changed by the game thread while we draw
+        final Rectangle window = currentWindow;
+        final Graphics windowGraphics = graphics;
+        
+        //the window is not displayable yet
+        if (windowGraphics == null)
+            return;
+        
         try
         {
             //the destination will be the size of the window
-            int dx1 = currentWindow.x;
-            int dy1 = currentWindow.y;
-            int dx2 = currentWindow.x + currentWindow.width;
-            int dy2 = currentWindow.y + currentWindow.height;
+            int dx1 = window.x;
+            int dy1 = window.y;
+            int dx2 = window.x + window.width;
+            int dy2 = window.y + window.height;
 
             //the source will be the entire image
             int sx1 = 0;
             int sy1 = 0;
-            int sx2 = bufferedImage.getWidth(null);
-            int sy2 = bufferedImage.getHeight(null);
+            int sx2 = image.getWidth(null);
+            int sy2 = image.getHeight(null);
             
             //draw our rendered image at the specified location
-            graphics.drawImage(bufferedImage, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+            windowGraphics.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
         }
         catch(Exception e)
         {
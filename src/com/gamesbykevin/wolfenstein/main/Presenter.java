@@ -0,0 +1,104 @@
+package com.gamesbykevin.wolfenstein.main;
+
+import com.gamesbykevin.framework.resources.Disposable;
+
+import com.gamesbykevin.wolfenstein.metrics.Metrics;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This thread will scale and draw the latest finished frame to the window.<br>
+ * Drawing to the window can be slow, so doing it here means the game updates are never held up by the display.
+ */
+public final class Presenter extends Thread implements Disposable
+{
+    //the object that will draw the frame to the window
+    private Main main;
+    
+    //the frames drawn by the game
+    private FrameRing frames;
+    
+    //do we keep presenting frames
+    private volatile boolean active = true;
+    
+    /**
+     * Create the thread that will present the frames
+     * @param main The object that will draw the frame to the window
+     * @param frames The frames drawn by the game
+     */
+    protected Presenter(final Main main, final FrameRing frames)
+    {
+        super("Presenter");
+        
+        this.main = main;
+        this.frames = frames;
+        
+        //don't keep the application running because of this thread
+        setDaemon(true);
+    }
+    
+    /**
+     * Stop presenting frames and wait for the thread to finish
+     */
+    @Override
+    public void dispose()
+    {
+        active = false;
+        
+        //wake the thread so it can see it is no longer active
+        LockSupport.unpark(this);
+        
+        boolean interrupted = false;
+        
+        //the current frame is finished before the thread stops, nothing it uses can be removed while it is still drawing
+        while (Thread.currentThread() != this && isAlive())
+        {
+            try
+            {
+                join();
+            }
+            catch (InterruptedException e)
+            {
+                //keep waiting, the interrupt is restored once the thread has stopped
+                interrupted = true;
+            }
+        }
+        
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        
+        main = null;
+        frames = null;
+    }
+    
+    /**
+     * Let the thread know a new frame has been finished
+     */
+    public void signal()
+    {
+        LockSupport.unpark(this);
+    }
+    
+    @Override
+    public void run()
+    {
+        while (active)
+        {
+            final BufferedImage image = frames.acquire();
+            
+            //wait until there is a new frame
+            if (image == null)
+            {
+                LockSupport.park(this);
+                continue;
+            }
+            
+            final long start = System.nanoTime();
+            
+            main.drawScreen(image);
+            
+            Metrics.PRESENT.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.gamesbykevin.wolfenstein.manager;
 
+import com.gamesbykevin.wolfenstein.display.RenderSnapshot;
+import com.gamesbykevin.wolfenstein.display.RenderWorker;
 import com.gamesbykevin.wolfenstein.display.Screen3D;
 import com.gamesbykevin.framework.menu.Menu;
 import com.gamesbykevin.framework.resources.FontManager;
@@ -19,6 +21,7 @@ import com.gamesbykevin.wolfenstein.resources.GameAudio;
 import com.gamesbykevin.wolfenstein.resources.GameImages;
 import com.gamesbykevin.wolfenstein.resources.GameFont;
 import com.gamesbykevin.wolfenstein.resources.Resources;
+import com.gamesbykevin.wolfenstein.shared.Shared;
 import java.awt.Color;
 
 import java.awt.Graphics;
@@ -46,6 +49,18 @@ public final class Manager implements IManager
     //this screen will render our 3d objects
     public Screen3D screen;
     
+    //renders the 3d objects while the game keeps updating, null if they are rendered on the game thread
+    private RenderWorker renderer;
+    
+    //the last 2 updates captured for rendering, the frames in between will move the camera from the previous to the latest
+    private RenderSnapshot previous, latest;
+    
+    //the camera is placed between the last 2 updates in these, taking turns so the one being rendered is never written to
+    private final RenderSnapshot[] interpolated = { new RenderSnapshot(), new RenderSnapshot() };
+    
+    //the index of the interpolated snapshot written to last
+    private int interpolatedIndex = 0;
+    
     //our hero in the game
     private Hero hero;
     
@@ -106,6 +121,13 @@ public final class Manager implements IManager
 
         //create new canvas
         this.screen = new Screen3D(window.width, window.height);
+        
+        if (Shared.OVERLAP_RENDERING)
+        {
+            //the 3d objects will be rendered on their own thread
+            this.renderer = new RenderWorker(screen);
+            this.renderer.start();
+        }
 
         //get the menu object
         final Menu menu = engine.getMenu();
@@ -135,6 +157,14 @@ public final class Manager implements IManager
     
     private void reset(final Engine engine) throws Exception
     {
+        //make sure the previous level is no longer being rendered
+        if (renderer != null)
+            renderer.finish();
+        
+        //nothing has been captured for the new level
+        previous = null;
+        latest = null;
+        
         //reset hero first before creating a new level
         hero.reset((level != null) ? level.isComplete() : true);
         
@@ -145,7 +175,7 @@ public final class Manager implements IManager
         mazeDimensions++;
         
         //create a new level
-        this.level = new Level(mazeDimensions, Level.DEFAULT_ROOM_DIMENSION, engine.getRandom(), engine.getResources().getGameImage(GameImages.Keys.Obstacles), engine.getResources().getGameImage(GameImages.Keys.BonusItems));
+        this.level = new Level(mazeDimensions, Level.DEFAULT_ROOM_DIMENSION, engine.getRandom(), engine.getResources().getSpriteFrames(GameImages.Keys.Obstacles), engine.getResources().getSpriteFrames(GameImages.Keys.BonusItems));
     }
     
     /**
@@ -183,6 +213,13 @@ public final class Manager implements IManager
     @Override
     public void dispose()
     {
+        //stop rendering before anything it uses is removed
+        if (renderer != null)
+        {
+            renderer.dispose();
+            renderer = null;
+        }
+        
         if (screen != null)
         {
             screen.dispose();
@@ -223,6 +260,9 @@ public final class Manager implements IManager
     @Override
     public void update(final Engine engine) throws Exception
     {
+        //if nothing is captured this update the camera will stay where it is
+        previous = latest;
+        
         //continue to generate level
         if (!level.isLevelCreated())
         {
@@ -259,8 +299,8 @@ public final class Manager implements IManager
                     //update our hero object
                     hero.update(engine);
                 
-                    //write our 3d screen objects etc.. to pixel array
-                    screen.renderPixelData(engine);
+                    //capture this update, the 3d objects are rendered from it by interpolate()
+                    latest = new RenderSnapshot(hero.getInput(), level, enemies);
                 }
                 else
                 {
@@ -309,6 +349,42 @@ public final class Manager implements IManager
         }
     }
     
+    /**
+     * Write the 3d objects to the pixel array with the camera placed between the last 2 updates.<br>
+     * This can be called any number of times between updates, so the frame rate does not depend on the update rate.
+     * @param alpha How far the camera is from the previous to the latest update, ranging from 0.0 to 1.0
+     * @throws Exception 
+     */
+    public void interpolate(final double alpha) throws Exception
+    {
+        //nothing to render if no update has been captured or the hero is not alive
+        if (latest == null || !hero.hasHealth())
+            return;
+        
+        //the camera will only move if the last 2 updates are different
+        RenderSnapshot snapshot = latest;
+        
+        if (previous != null && previous != latest)
+        {
+            //the render worker waits for the previous frame before starting this one, so the other snapshot is no longer in use
+            interpolatedIndex = (interpolatedIndex + 1) % interpolated.length;
+            
+            snapshot = interpolated[interpolatedIndex];
+            snapshot.interpolate(previous, latest, alpha);
+        }
+        
+        if (renderer != null)
+        {
+            //render on its own thread while the game keeps going
+            renderer.submit(snapshot, level, textures);
+        }
+        else
+        {
+            //write our 3d screen objects etc.. to pixel array
+            screen.renderPixelData(snapshot, level, textures);
+        }
+    }
+    
     /**
      * Draw all of our application elements
      * @param graphics Graphics object used for drawing
@@ -320,8 +396,8 @@ public final class Manager implements IManager
         {
             if (!level.isComplete())
             {
-                //draw the buffered image
-                graphics.drawImage(screen.getImage(), 0, 0, window.width, window.height, null);
+                //draw the buffered image, the last finished frame if it is rendered on its own thread
+                graphics.drawImage((renderer != null) ? renderer.getImage() : screen.getImage(), 0, 0, window.width, window.height, null);
                 
                 //draw hero
                 hero.render(graphics);
@@ -0,0 +1,176 @@
+package com.gamesbykevin.wolfenstein.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how long something took, so the percentiles can be found without storing every time.<br>
+ * Each power of 2 is split into 8 buckets, so a percentile is never off by more than 12.5%.<br>
+ * Times can be recorded from any thread and read from any other thread without locking.
+ */
+public final class Histogram
+{
+    //the number of bits used for the buckets inside each power of 2
+    private static final int SUB_BITS = 3;
+    
+    //the number of buckets inside each power of 2
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    
+    //enough buckets for any positive long
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+    
+    //the name of what is being timed
+    private final String name;
+    
+    //the number of times recorded in each bucket
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    
+    //the number of times, their total and the longest time recorded
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maximum = new AtomicLong();
+    
+    /**
+     * Create an empty histogram
+     * @param name The name of what is being timed
+     */
+    public Histogram(final String name)
+    {
+        this.name = name;
+    }
+    
+    public String getName()
+    {
+        return this.name;
+    }
+    
+    /**
+     * Record how long something took
+     * @param time The time it took (nano-seconds), negative times are counted as 0
+     */
+    public void record(final long time)
+    {
+        final long value = Math.max(0, time);
+        
+        buckets.incrementAndGet(getBucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        
+        long longest = maximum.get();
+        
+        while (value > longest && !maximum.compareAndSet(longest, value))
+        {
+            longest = maximum.get();
+        }
+    }
+    
+    /**
+     * Get the bucket the time is counted in
+     * @param value The time (nano-seconds)
+     * @return The index of the bucket
+     */
+    private static int getBucket(final long value)
+    {
+        //small times have a bucket each
+        if (value < SUB_BUCKETS)
+            return (int)value;
+        
+        //the highest bit set, followed by the next bits to pick the bucket inside this power of 2
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int sub = (int)(value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        
+        return ((exponent - SUB_BITS + 1) * SUB_BUCKETS) + sub;
+    }
+    
+    /**
+     * Get the largest time counted in the bucket
+     * @param bucket The index of the bucket
+     * @return The largest time (nano-seconds)
+     */
+    private static long getUpperBound(final int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        
+        final int exponent = (bucket / SUB_BUCKETS) + SUB_BITS - 1;
+        final long sub = bucket % SUB_BUCKETS;
+        
+        //the size of each bucket inside this power of 2
+        final long width = 1L << (exponent - SUB_BITS);
+        
+        return ((SUB_BUCKETS + sub) * width) + width - 1;
+    }
+    
+    /**
+     * Get the number of times recorded
+     * @return The number of times since the last reset
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+    
+    /**
+     * Get the average time
+     * @return The average time (nano-seconds), 0 if nothing has been recorded
+     */
+    public double getMean()
+    {
+        final long times = count.get();
+        
+        return (times > 0) ? (double)total.get() / times : 0;
+    }
+    
+    /**
+     * Get the longest time
+     * @return The longest time recorded (nano-seconds)
+     */
+    public long getMaximum()
+    {
+        return maximum.get();
+    }
+    
+    /**
+     * Get the time that the percentage of times were at or below
+     * @param percentile The percentage ranging from 0.0 to 100.0
+     * @return The time (nano-seconds), 0 if nothing has been recorded
+     */
+    public long getPercentile(final double percentile)
+    {
+        final long times = count.get();
+        
+        if (times == 0)
+            return 0;
+        
+        //the number of times that have to be at or below the result
+        final long target = Math.max(1, (long)Math.ceil((percentile / 100.0) * times));
+        
+        long counted = 0;
+        
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counted += buckets.get(i);
+            
+            //the bucket can be wider than the times in it
+            if (counted >= target)
+                return Math.min(getUpperBound(i), getMaximum());
+        }
+        
+        return getMaximum();
+    }
+    
+    /**
+     * Remove all recorded times
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            buckets.set(i, 0);
+        }
+        
+        count.set(0);
+        total.set(0);
+        maximum.set(0);
+    }
+}
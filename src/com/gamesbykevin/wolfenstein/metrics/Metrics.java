@@ -0,0 +1,245 @@
+package com.gamesbykevin.wolfenstein.metrics;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import javax.management.ObjectName;
+
+/**
+ * The registry of frame time histograms for each stage of an update and a frame.<br>
+ * Each stage records how long it took every time it runs, the histograms are exposed over JMX and can be written to a CSV file.
+ */
+public final class Metrics implements MetricsMBean
+{
+    //the name the histograms are registered under with JMX
+    public static final String OBJECT_NAME = "com.gamesbykevin.wolfenstein:type=Metrics";
+    
+    //the game update
+    public static final Histogram ENGINE_UPDATE = new Histogram("engine.update");
+    
+    //the whole 3d view, including any stage below
+    public static final Histogram RENDER_FRAME = new Histogram("render.frame");
+    
+    //the floor and ceiling
+    public static final Histogram RENDER_TOP_BOTTOM = new Histogram("render.topBottom");
+    
+    //the walls
+    public static final Histogram RENDER_WALLS = new Histogram("render.walls");
+    
+    //projecting the obstacles and bonus items onto the screen
+    public static final Histogram RENDER_LEVEL_OBJECTS = new Histogram("render.levelObjects");
+    
+    //projecting the enemies onto the screen
+    public static final Histogram RENDER_ENEMIES = new Histogram("render.enemies");
+    
+    //projecting the obstacles, bonus items and enemies captured in a snapshot onto the screen
+    public static final Histogram RENDER_SNAPSHOT = new Histogram("render.snapshot");
+    
+    //drawing and shading the sprites
+    public static final Histogram RENDER_SPRITES = new Histogram("render.sprites");
+    
+    //scaling a lower resolution 3d view to the screen
+    public static final Histogram RENDER_SCALE = new Histogram("render.scale");
+    
+    //drawing a finished frame to the window
+    public static final Histogram PRESENT = new Histogram("present");
+    
+    //every stage in the order they are reported
+    private static final Histogram[] HISTOGRAMS =
+    {
+        ENGINE_UPDATE, RENDER_FRAME, RENDER_TOP_BOTTOM, RENDER_WALLS, RENDER_LEVEL_OBJECTS,
+        RENDER_ENEMIES, RENDER_SNAPSHOT, RENDER_SPRITES, RENDER_SCALE, PRESENT
+    };
+    
+    //the percentiles in the summary
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+    
+    //the number of nano-seconds in a micro-second
+    private static final double NANO_SECONDS_PER_MICRO_SECOND = 1000.0;
+    
+    //have the histograms been registered
+    private static boolean registered = false;
+    
+    private Metrics()
+    {
+        //the histograms are shared, there is only 1 registry
+    }
+    
+    /**
+     * Register the histograms with JMX.<br>
+     * If a file is provided the summary will be written to it when the application shuts down.
+     * @param file The CSV file to write when shutting down, null to not write a file
+     */
+    public static synchronized void register(final File file)
+    {
+        if (registered)
+            return;
+        
+        registered = true;
+        
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), new ObjectName(OBJECT_NAME));
+        }
+        catch (Exception e)
+        {
+            //the game can run without JMX, an applet may not be allowed to register
+            e.printStackTrace();
+        }
+        
+        if (file == null)
+            return;
+        
+        try
+        {
+            Runtime.getRuntime().addShutdownHook(new Thread("Metrics")
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        export(file);
+                    }
+                    catch (Exception e)
+                    {
+                        e.printStackTrace();
+                    }
+                }
+            });
+        }
+        catch (SecurityException e)
+        {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Write the summary of each stage to a CSV file, all times are in micro-seconds
+     * @param file The location of the file
+     * @throws Exception If the file could not be written
+     */
+    public static void export(final File file) throws Exception
+    {
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8"))
+        {
+            writer.println("stage,count,mean,p50,p90,p99,p99.9,max");
+            
+            for (Histogram histogram : HISTOGRAMS)
+            {
+                writer.println(getLine(histogram, ","));
+            }
+        }
+    }
+    
+    /**
+     * Get the count, mean, percentiles and longest time of the stage
+     * @param histogram The histogram of the stage
+     * @param separator The text placed between each value
+     * @return The name of the stage followed by each value, the times are in micro-seconds
+     */
+    private static String getLine(final Histogram histogram, final String separator)
+    {
+        final StringBuilder line = new StringBuilder(histogram.getName());
+        
+        line.append(separator).append(histogram.getCount());
+        line.append(separator).append(format(histogram.getMean()));
+        
+        for (double percentile : PERCENTILES)
+        {
+            line.append(separator).append(format(histogram.getPercentile(percentile)));
+        }
+        
+        line.append(separator).append(format(histogram.getMaximum()));
+        
+        return line.toString();
+    }
+    
+    private static String format(final double nanoSeconds)
+    {
+        return String.format(Locale.US, "%.1f", nanoSeconds / NANO_SECONDS_PER_MICRO_SECOND);
+    }
+    
+    /**
+     * Get the histogram of the stage
+     * @param stage The name of the stage
+     * @return The histogram
+     * @throws IllegalArgumentException If there is no stage with the name
+     */
+    private static Histogram getHistogram(final String stage)
+    {
+        for (Histogram histogram : HISTOGRAMS)
+        {
+            if (histogram.getName().equals(stage))
+                return histogram;
+        }
+        
+        throw new IllegalArgumentException("Stage not setup here \"" + stage + "\"");
+    }
+    
+    @Override
+    public String[] getStages()
+    {
+        final String[] stages = new String[HISTOGRAMS.length];
+        
+        for (int i = 0; i < HISTOGRAMS.length; i++)
+        {
+            stages[i] = HISTOGRAMS[i].getName();
+        }
+        
+        return stages;
+    }
+    
+    @Override
+    public String[] getSummary()
+    {
+        final String[] summary = new String[HISTOGRAMS.length];
+        
+        for (int i = 0; i < HISTOGRAMS.length; i++)
+        {
+            summary[i] = getLine(HISTOGRAMS[i], " ");
+        }
+        
+        return summary;
+    }
+    
+    @Override
+    public long getCount(final String stage)
+    {
+        return getHistogram(stage).getCount();
+    }
+    
+    @Override
+    public double getMean(final String stage)
+    {
+        return getHistogram(stage).getMean() / NANO_SECONDS_PER_MICRO_SECOND;
+    }
+    
+    @Override
+    public double getPercentile(final String stage, final double percentile)
+    {
+        return getHistogram(stage).getPercentile(percentile) / NANO_SECONDS_PER_MICRO_SECOND;
+    }
+    
+    @Override
+    public double getMaximum(final String stage)
+    {
+        return getHistogram(stage).getMaximum() / NANO_SECONDS_PER_MICRO_SECOND;
+    }
+    
+    @Override
+    public void reset()
+    {
+        for (Histogram histogram : HISTOGRAMS)
+        {
+            histogram.reset();
+        }
+    }
+    
+    @Override
+    public void exportCsv(final String path) throws Exception
+    {
+        export(new File(path));
+    }
+}
@@ -0,0 +1,60 @@
+package com.gamesbykevin.wolfenstein.metrics;
+
+/**
+ * The frame time histograms as seen over JMX, all times are in micro-seconds
+ */
+public interface MetricsMBean
+{
+    /**
+     * Get the name of each stage that is timed
+     * @return The names of the stages
+     */
+    public String[] getStages();
+    
+    /**
+     * Get a line for each stage with the count, mean, 50th, 90th, 99th, 99.9th percentile and the longest time
+     * @return The summary of each stage
+     */
+    public String[] getSummary();
+    
+    /**
+     * Get the number of times the stage was timed
+     * @param stage The name of the stage
+     * @return The number of times since the last reset
+     */
+    public long getCount(String stage);
+    
+    /**
+     * Get the average time of the stage
+     * @param stage The name of the stage
+     * @return The average time (micro-seconds)
+     */
+    public double getMean(String stage);
+    
+    /**
+     * Get the time the percentage of the times of the stage were at or below
+     * @param stage The name of the stage
+     * @param percentile The percentage ranging from 0.0 to 100.0
+     * @return The time (micro-seconds)
+     */
+    public double getPercentile(String stage, double percentile);
+    
+    /**
+     * Get the longest time of the stage
+     * @param stage The name of the stage
+     * @return The longest time (micro-seconds)
+     */
+    public double getMaximum(String stage);
+    
+    /**
+     * Remove all recorded times
+     */
+    public void reset();
+    
+    /**
+     * Write the summary of each stage to a CSV file
+     * @param path The location of the file
+     * @throws Exception If the file could not be written
+     */
+    public void exportCsv(String path) throws Exception;
+}
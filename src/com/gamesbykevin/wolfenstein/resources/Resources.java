@@ -2,10 +2,15 @@ package com.gamesbykevin.wolfenstein.resources;
 
 import com.gamesbykevin.framework.resources.*;
 
+import com.gamesbykevin.wolfenstein.display.SpriteFrames;
+import com.gamesbykevin.wolfenstein.level.objects.LevelObject;
+
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This class will load all resources in the collection and provide a way to access them
@@ -32,6 +37,9 @@ public final class Resources implements IResources
     private GameFont fonts;
     private GameText textFiles;
     
+    //the decoded animation frames of each sprite sheet
+    private HashMap<GameImages.Keys, SpriteFrames> spriteFrames;
+    
     public Resources() throws Exception
     {
         //object to contain audio resources
@@ -91,6 +99,15 @@ public final class Resources implements IResources
             return;
         }
         
+        if (spriteFrames == null)
+        {
+            //decode the sprite sheets once all images are loaded
+            createSpriteFrames();
+            
+            //exit method so progress can be drawn
+            return;
+        }
+        
         if (!fonts.isComplete())
         {
             //load 1 resource at a time
@@ -143,6 +160,60 @@ public final class Resources implements IResources
         audio.setEnabled(enabled);
     }
     
+    /**
+     * Decode every animation frame of the sprite sheets used by the level objects
+     */
+    private void createSpriteFrames() throws Exception
+    {
+        this.spriteFrames = new HashMap<>();
+        
+        for (GameImages.Keys key : GameImages.Keys.values())
+        {
+            if (isSpriteSheet(key))
+                this.spriteFrames.put(key, new SpriteFrames(getGameImage(key), LevelObject.DIMENSION));
+        }
+    }
+    
+    /**
+     * Is the image a sprite sheet of level object animations
+     * @param key The key of the image
+     * @return true if the image is a sprite sheet, false otherwise
+     */
+    public static boolean isSpriteSheet(final GameImages.Keys key)
+    {
+        switch (key)
+        {
+            //these images are not sprite sheets
+            case WallTextures:
+            case PlayerHud:
+            case Mugshots:
+            case LevelComplete:
+                return false;
+                
+            default:
+                return true;
+        }
+    }
+    
+    /**
+     * Get the decoded animation frames of the sprite sheet
+     * @param key The key of the sprite sheet image
+     * @return The decoded frames, null if the image is not a sprite sheet
+     */
+    public SpriteFrames getSpriteFrames(final GameImages.Keys key)
+    {
+        return spriteFrames.get(key);
+    }
+    
+    /**
+     * Get the decoded animation frames of every sprite sheet
+     * @return The decoded frames for each sprite sheet image
+     */
+    public Map<GameImages.Keys, SpriteFrames> getSpriteFrames()
+    {
+        return spriteFrames;
+    }
+    
     /**
      * Get the specified Image
      * @param key
@@ -213,6 +284,17 @@ public final class Resources implements IResources
             fonts.dispose();
             fonts = null;
         }
+        
+        if (spriteFrames != null)
+        {
+            for (SpriteFrames frames : spriteFrames.values())
+            {
+                frames.dispose();
+            }
+            
+            spriteFrames.clear();
+            spriteFrames = null;
+        }
     }
     
     @Override
@@ -1,6 +1,7 @@
 package com.gamesbykevin.wolfenstein.shared;
 
 import java.awt.Cursor;
+import java.awt.GraphicsEnvironment;
 import java.awt.Point;
 import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
@@ -32,9 +33,49 @@ public final class Shared
     //how many updates per second, controls speed of game
     public static final int DEFAULT_UPS = 30;
     
+    //how long before the next update/frame the game loop stops parking and spins (micro-seconds)
+    public static final long PACER_SPIN = 250;
+    
+    //the most frames rendered per second, 0 will render as often as the display refreshes (or DEFAULT_FPS if unknown)
+    public static final int MAX_FPS = 0;
+    
+    //the frames rendered per second when MAX_FPS is 0 and there is no display or its refresh rate is unknown
+    public static final int DEFAULT_FPS = 60;
+    
+    //how many threads will render the 3d floor/ceiling, 1 will render everything on the game thread
+    public static final int RENDER_THREADS = Runtime.getRuntime().availableProcessors();
+    
+    //do we cast 1 ray per column to draw the walls instead of checking every block in range
+    public static final boolean RAYCAST_WALLS = false;
+    
+    //do we step through the wall/sprite textures with fixed point math instead of dividing for every pixel
+    public static final boolean FIXED_POINT_RASTER = false;
+    
+    //do we sample smaller copies of the wall/floor/ceiling textures for surfaces farther away
+    public static final boolean MIPMAP_TEXTURES = true;
+    
+    //do we reuse the floor, ceiling and walls of the last frame when the camera and doors have not changed
+    public static final boolean STATIC_LAYER_CACHE = true;
+    
+    //do we render the 3d view of each update on its own thread while the next update runs
+    public static final boolean OVERLAP_RENDERING = true;
+    
+    //do we lower the resolution of the 3d view when a frame takes longer than the budget to render
+    public static final boolean DYNAMIC_RESOLUTION = false;
+    
+    //the smallest and largest resolution scale of the 3d view when the resolution is dynamic
+    public static final double DYNAMIC_RESOLUTION_MIN_SCALE = 0.5;
+    public static final double DYNAMIC_RESOLUTION_MAX_SCALE = 1.0;
+    
+    //the time we want the 3d view to take to render when the resolution is dynamic (milli-seconds)
+    public static final long RENDER_BUDGET = 20;
+    
+    //the frame time histograms are written to this CSV file when the game shuts down, null to not write them (they can still be exported over JMX)
+    public static final String METRICS_FILE = null;
+    
     //what is the name of our game
     public static final String GAME_NAME = "Wolfenstein";
     
-    //blank cursor created here to hide the mouse cursor
-    public static final Cursor CURSOR = Toolkit.getDefaultToolkit().createCustomCursor(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), new Point(0, 0), "blank cursor");
+    //blank cursor created here to hide the mouse cursor, there is no cursor without a display
+    public static final Cursor CURSOR = GraphicsEnvironment.isHeadless() ? null : Toolkit.getDefaultToolkit().createCustomCursor(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), new Point(0, 0), "blank cursor");
 }
\ No newline at end of file